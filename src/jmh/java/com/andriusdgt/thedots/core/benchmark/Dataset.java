@@ -0,0 +1,85 @@
+package com.andriusdgt.thedots.core.benchmark;
+
+import com.andriusdgt.thedots.core.index.PointKeySet;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.validation.PointValidator;
+
+import javax.validation.Validator;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Shapes of generated point lists, built from a fixed seed. Every dataset holds distinct, valid points only, which
+ * {@link #points} checks.
+ */
+public enum Dataset {
+
+    UNIFORM {
+        @Override
+        long key(int i, int size, Random random) {
+            return PointKeys.pack(randomCoordinate(random), randomCoordinate(random));
+        }
+    },
+    GRID {
+        @Override
+        long key(int i, int size, Random random) {
+            int side = (int) Math.ceil(Math.sqrt(size));
+            return PointKeys.pack(i / side, i % side);
+        }
+    },
+    COLUMN {
+        @Override
+        long key(int i, int size, Random random) {
+            return PointKeys.pack(0, MIN_COORDINATE + i);
+        }
+    };
+
+    static final int LIST_SIZE_LIMIT = 10_000;
+
+    private static final int MIN_COORDINATE = -5000;
+    private static final int COORDINATE_COUNT = 10_001;
+    private static final long SEED = 42;
+    private static final PointValidator POINT_VALIDATOR = new PointValidator(rejectingValidator());
+
+    /**
+     * Returns a validator failing on any call, which services only make for invalid points.
+     */
+    static Validator rejectingValidator() {
+        return (Validator) Proxy.newProxyInstance(
+            Validator.class.getClassLoader(),
+            new Class<?>[]{Validator.class},
+            (proxy, method, args) -> {
+                throw new IllegalStateException("Dataset holds an invalid point");
+            }
+        );
+    }
+
+    public List<Point> points(int size, String listId) {
+        Random random = new Random(SEED);
+        PointKeySet keys = new PointKeySet(size);
+        List<Point> points = new ArrayList<>(size);
+        for (int i = 0; points.size() < size; i++) {
+            long key = key(i, size, random);
+            if (keys.add(key))
+                points.add(new Point(PointKeys.x(key), PointKeys.y(key), listId));
+        }
+        points.forEach(POINT_VALIDATOR::findViolation);
+        return points;
+    }
+
+    public List<String> lines(int size) {
+        return points(size, "listId").stream().map(point -> point.getX() + " " + point.getY()).collect(toList());
+    }
+
+    abstract long key(int i, int size, Random random);
+
+    private static int randomCoordinate(Random random) {
+        return MIN_COORDINATE + random.nextInt(COORDINATE_COUNT);
+    }
+
+}
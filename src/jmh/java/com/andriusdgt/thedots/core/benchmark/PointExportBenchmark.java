@@ -0,0 +1,48 @@
+package com.andriusdgt.thedots.core.benchmark;
+
+import com.andriusdgt.thedots.core.repository.InMemoryPointListRepository;
+import com.andriusdgt.thedots.core.repository.InMemoryPointRepository;
+import com.andriusdgt.thedots.core.service.PointListService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PointExportBenchmark {
+
+    @Param({"UNIFORM", "GRID", "COLUMN"})
+    private Dataset dataset;
+
+    @Param({"1000", "9999"})
+    private int size;
+
+    private PointListService pointListService;
+
+    @Setup
+    public void setUp() {
+        InMemoryPointRepository pointRepository = new InMemoryPointRepository();
+        pointRepository.saveAll(dataset.points(size, "listId"));
+        pointListService =
+            new PointListService(Dataset.rejectingValidator(), pointRepository, new InMemoryPointListRepository());
+    }
+
+    @Benchmark
+    public String getPoints() {
+        return pointListService.getPoints("listId");
+    }
+
+    @Benchmark
+    public void writePoints() throws IOException {
+        pointListService.writePoints("listId", OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeBinaryPoints() throws IOException {
+        pointListService.writeBinaryPoints("listId", OutputStream.nullOutputStream());
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.andriusdgt.thedots.core.benchmark;
+
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.model.Warning;
+import com.andriusdgt.thedots.core.repository.InMemoryPointListRepository;
+import com.andriusdgt.thedots.core.repository.InMemoryPointRepository;
+import com.andriusdgt.thedots.core.service.PointListService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports on every invocation into a fresh list, either empty or already holding {@code existingSize} points of the
+ * same dataset, which leaves room for 500 more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PointImportBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"UNIFORM", "GRID", "COLUMN"})
+    private Dataset dataset;
+
+    @Param({"1000", "9999"})
+    private int size;
+
+    @Param({"0", "9500"})
+    private int existingSize;
+
+    private List<String> lines;
+    private byte[] binaryPoints;
+    private List<Point> existingPoints;
+    private ExecutorService writer;
+    private PointListService pointListService;
+
+    @Setup
+    public void setUp() throws IOException {
+        lines = dataset.lines(size);
+        InMemoryPointRepository pointRepository = new InMemoryPointRepository();
+        pointRepository.saveAll(dataset.points(size, "listId"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new PointListService(Dataset.rejectingValidator(), pointRepository, new InMemoryPointListRepository())
+            .writeBinaryPoints("listId", outputStream);
+        binaryPoints = outputStream.toByteArray();
+        existingPoints = dataset.points(existingSize, "listId");
+        writer = Executors.newSingleThreadExecutor();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetList() {
+        InMemoryPointRepository pointRepository = new InMemoryPointRepository();
+        pointRepository.saveAll(existingPoints);
+        pointListService =
+            new PointListService(Dataset.rejectingValidator(), pointRepository, new InMemoryPointListRepository());
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.shutdownNow();
+    }
+
+    @Benchmark
+    public Set<Warning> create() {
+        return pointListService.create(lines.stream(), "listId", Dataset.LIST_SIZE_LIMIT);
+    }
+
+    @Benchmark
+    public Set<Warning> createPipelined() {
+        return pointListService.create(lines.stream(), "listId", Dataset.LIST_SIZE_LIMIT, CHUNK_SIZE, writer);
+    }
+
+    @Benchmark
+    public Set<Warning> createFromBinary() throws IOException {
+        return pointListService
+            .createFromBinary(new ByteArrayInputStream(binaryPoints), "listId", Dataset.LIST_SIZE_LIMIT);
+    }
+
+}
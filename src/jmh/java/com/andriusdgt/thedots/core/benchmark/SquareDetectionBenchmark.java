@@ -0,0 +1,41 @@
+package com.andriusdgt.thedots.core.benchmark;
+
+import com.andriusdgt.thedots.core.model.Square;
+import com.andriusdgt.thedots.core.repository.InMemoryPointRepository;
+import com.andriusdgt.thedots.core.service.SquareService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SquareDetectionBenchmark {
+
+    @Param({"UNIFORM", "GRID", "COLUMN"})
+    private Dataset dataset;
+
+    @Param({"1000", "9999"})
+    private int size;
+
+    private SquareService squareService;
+
+    @Setup
+    public void setUp() {
+        InMemoryPointRepository pointRepository = new InMemoryPointRepository();
+        pointRepository.saveAll(dataset.points(size, "listId"));
+        squareService = new SquareService(pointRepository);
+    }
+
+    @Benchmark
+    public List<Square> find() {
+        return squareService.find("listId");
+    }
+
+    @Benchmark
+    public long count() {
+        return squareService.count("listId");
+    }
+
+}
@@ -0,0 +1,241 @@
+package com.andriusdgt.thedots.core.cache;
+
+import com.andriusdgt.thedots.core.listener.PointChangeListener;
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.model.Square;
+import com.andriusdgt.thedots.core.repository.PointRepository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * Caches the squares found in a list until a point of the list is written, for the given time and up to the given
+ * number of squares.
+ */
+public final class SquareResultCache implements PointChangeListener {
+
+    private final long cachedSquareLimit;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoTime;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextVersion;
+    private long cachedSquareCount;
+    private long hitCount;
+    private long missCount;
+
+    public SquareResultCache(long cachedSquareLimit, Duration timeToLive) {
+        this(cachedSquareLimit, timeToLive, System::nanoTime);
+    }
+
+    SquareResultCache(long cachedSquareLimit, Duration timeToLive, LongSupplier nanoTime) {
+        if (cachedSquareLimit < 0)
+            throw new IllegalArgumentException("Invalid cached square limit " + cachedSquareLimit);
+        this.cachedSquareLimit = cachedSquareLimit;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Returns the cached squares of the list, or detects and caches them. The returned list is unmodifiable.
+     */
+    public List<Square> get(String listId, Function<String, List<Square>> detection) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(listId);
+            if (entry != null && entry.squares != null && !isExpired(entry)) {
+                hitCount++;
+                return entry.squares;
+            }
+            if (entry == null || entry.squares != null) {
+                remove(listId);
+                entry = new Entry(nextVersion++);
+                entries.put(listId, entry);
+            }
+            missCount++;
+        }
+        List<Square> squares = Collections.unmodifiableList(new ArrayList<>(detection.apply(listId)));
+        store(listId, entry, squares);
+        return squares;
+    }
+
+    public synchronized void invalidate(String listId) {
+        remove(listId);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        cachedSquareCount = 0;
+    }
+
+    /**
+     * Wraps the repository so that its writes invalidate the cache.
+     */
+    public PointRepository watch(PointRepository pointRepository) {
+        return new WatchedPointRepository(pointRepository);
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    synchronized long getCachedSquareCount() {
+        return cachedSquareCount;
+    }
+
+    @Override
+    public void pointsAdded(String listId, Collection<Point> points) {
+        invalidate(listId);
+    }
+
+    @Override
+    public void pointRemoved(Point point) {
+        invalidate(point.getListId());
+    }
+
+    @Override
+    public void listCleared(String listId) {
+        invalidate(listId);
+    }
+
+    private synchronized void store(String listId, Entry entry, List<Square> squares) {
+        Entry current = entries.get(listId);
+        if (current == null || current.version != entry.version)
+            return;
+        if (squares.size() > cachedSquareLimit) {
+            remove(listId);
+            return;
+        }
+        cachedSquareCount += squares.size() - (current.squares == null ? 0 : current.squares.size());
+        current.squares = squares;
+        current.storedAt = nanoTime.getAsLong();
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (cachedSquareCount > cachedSquareLimit && leastRecentlyUsed.hasNext()) {
+            Entry evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            if (evicted.squares != null)
+                cachedSquareCount -= evicted.squares.size();
+        }
+    }
+
+    private void remove(String listId) {
+        Entry removed = entries.remove(listId);
+        if (removed != null && removed.squares != null)
+            cachedSquareCount -= removed.squares.size();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return nanoTime.getAsLong() - entry.storedAt > timeToLiveNanos;
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private List<Square> squares;
+        private long storedAt;
+
+        Entry(long version) {
+            this.version = version;
+        }
+
+    }
+
+    private final class WatchedPointRepository implements PointRepository {
+
+        private final PointRepository pointRepository;
+
+        WatchedPointRepository(PointRepository pointRepository) {
+            this.pointRepository = pointRepository;
+        }
+
+        @Override
+        public void save(Point point) {
+            pointRepository.save(point);
+            invalidate(point.getListId());
+        }
+
+        @Override
+        public void saveAll(Iterable<Point> points) {
+            pointRepository.saveAll(points);
+            Set<String> listIds = new HashSet<>();
+            for (Point point : points)
+                listIds.add(point.getListId());
+            listIds.forEach(SquareResultCache.this::invalidate);
+        }
+
+        @Override
+        public List<Point> findByListId(String listId) {
+            return pointRepository.findByListId(listId);
+        }
+
+        @Override
+        public List<Point> findByListIdOrderByXAscYAsc(String listId) {
+            return pointRepository.findByListIdOrderByXAscYAsc(listId);
+        }
+
+        @Override
+        public List<Point> findByListId(String listId, int pageIndex, int pageSize) {
+            return pointRepository.findByListId(listId, pageIndex, pageSize);
+        }
+
+        @Override
+        public List<Point> findByListIdIn(Collection<String> listIds) {
+            return pointRepository.findByListIdIn(listIds);
+        }
+
+        @Override
+        public List<Point> findByListIdWithin(String listId, int x1, int y1, int x2, int y2) {
+            return pointRepository.findByListIdWithin(listId, x1, y1, x2, y2);
+        }
+
+        @Override
+        public LongStream findKeysByListId(String listId) {
+            return pointRepository.findKeysByListId(listId);
+        }
+
+        @Override
+        public List<Point> findByListIdOrderByXAndY(
+            String listId,
+            int pageIndex,
+            int pageSize,
+            String sortDirection
+        ) {
+            return pointRepository.findByListIdOrderByXAndY(listId, pageIndex, pageSize, sortDirection);
+        }
+
+        @Override
+        public Optional<Point> findById(String id) {
+            return pointRepository.findById(id);
+        }
+
+        @Override
+        public boolean exists(Point point) {
+            return pointRepository.exists(point);
+        }
+
+        @Override
+        public long countByListId(String listId) {
+            return pointRepository.countByListId(listId);
+        }
+
+        @Override
+        public void deleteById(String id) {
+            pointRepository.deleteById(id);
+            invalidateAll();
+        }
+
+        @Override
+        public void deleteByListId(String listId) {
+            pointRepository.deleteByListId(listId);
+            invalidate(listId);
+        }
+
+    }
+
+}
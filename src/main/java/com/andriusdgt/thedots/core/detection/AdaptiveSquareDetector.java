@@ -0,0 +1,39 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointGrid;
+import com.andriusdgt.thedots.core.index.PointIndex;
+
+/**
+ * Finds squares with sides parallel to the axes with whichever of {@link AxisAlignedSquareDetector} and
+ * {@link GridSquareDetector} is estimated to be cheaper for the list.
+ */
+public final class AdaptiveSquareDetector {
+
+    private static final long HASH_PAIR_COST = 8;
+
+    private AdaptiveSquareDetector() {
+    }
+
+    public static void detect(PointIndex index, SquareConsumer consumer) {
+        if (prefersGrid(index))
+            GridSquareDetector.detect(PointGrid.of(index), consumer);
+        else
+            AxisAlignedSquareDetector.detect(index, consumer);
+    }
+
+    static boolean prefersGrid(PointIndex index) {
+        long gridWords = PointGrid.wordCount(index);
+        if (gridWords == 0 || gridWords > PointLookup.MAX_GRID_WORDS)
+            return false;
+        long columnCount = index.columnCount();
+        long wordsPerColumn = gridWords / ((long) index.x(index.size() - 1) - index.x(0) + 1);
+        long pointPairs = 0;
+        for (int column = 0; column < columnCount; column++) {
+            long columnSize = index.columnEnd(column) - index.columnStart(column);
+            pointPairs += columnSize * (columnSize - 1) / 2;
+        }
+        long gridCost = gridWords + columnCount * (columnCount - 1) / 2 * wordsPerColumn;
+        return gridCost < pointPairs * HASH_PAIR_COST;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+
+/**
+ * Finds squares with sides parallel to the axes, ordered by X, then by bottom Y and then by side length.
+ */
+public final class AxisAlignedSquareDetector {
+
+    private AxisAlignedSquareDetector() {
+    }
+
+    public static void detect(PointIndex index, SquareConsumer consumer) {
+        detect(index, 0, index.columnCount(), consumer);
+    }
+
+    public static void detect(PointIndex index, int fromColumn, int toColumn, SquareConsumer consumer) {
+        detectFromBottoms(index, index.columnStart(fromColumn), index.columnStart(toColumn), consumer);
+    }
+
+    public static void detectFromBottoms(PointIndex index, int fromPoint, int toPoint, SquareConsumer consumer) {
+        if (fromPoint >= toPoint)
+            return;
+        int column = index.columnOf(fromPoint);
+        for (int bottom = fromPoint; bottom < toPoint; bottom++) {
+            while (bottom >= index.columnEnd(column))
+                column++;
+            detectFromBottom(index, bottom, index.columnEnd(column), consumer);
+        }
+    }
+
+    public static void detectFromBottom(PointIndex index, int bottom, SquareConsumer consumer) {
+        detectFromBottom(index, bottom, index.columnEnd(index.columnOf(bottom)), consumer);
+    }
+
+    private static void detectFromBottom(PointIndex index, int bottom, int columnEnd, SquareConsumer consumer) {
+        int x = index.x(bottom);
+        int bottomY = index.y(bottom);
+        for (int upper = bottom + 1; upper < columnEnd; upper++) {
+            int upperY = index.y(upper);
+            long sideLength = (long) upperY - bottomY;
+            if (sideLength > Integer.MAX_VALUE || x + sideLength > Integer.MAX_VALUE)
+                break;
+            int rightX = x + (int) sideLength;
+            if (index.contains(rightX, bottomY) && index.contains(rightX, upperY))
+                consumer.accept(x, bottomY, (int) sideLength, 0);
+        }
+    }
+
+}
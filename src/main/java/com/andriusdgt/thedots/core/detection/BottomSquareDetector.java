@@ -0,0 +1,14 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+
+/**
+ * Detection of the squares having a given indexed point as their bottom left vertex, in the order of their bottom right
+ * vertices.
+ */
+@FunctionalInterface
+public interface BottomSquareDetector {
+
+    void detectFromBottom(PointIndex index, int bottom, SquareConsumer consumer);
+
+}
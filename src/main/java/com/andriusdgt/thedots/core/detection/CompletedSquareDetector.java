@@ -0,0 +1,96 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+import com.andriusdgt.thedots.core.index.PointKeys;
+
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Finds the squares a point would complete if it was added: the squares having it as a vertex and existing points as
+ * the other three. A point already present completes no squares. Squares are reported in no particular order.
+ */
+public final class CompletedSquareDetector {
+
+    private CompletedSquareDetector() {
+    }
+
+    public static void detect(PointIndex index, int x, int y, SquareConsumer consumer) {
+        detect(index, index::contains, x, y, consumer);
+    }
+
+    /**
+     * Same as {@link #detect(PointIndex, int, int, SquareConsumer)}, pairing the point with the points of
+     * {@code column}, which has to hold the point's X column, and looking the other vertices up in {@code points}.
+     */
+    public static void detect(PointIndex column, LongPredicate points, int x, int y, SquareConsumer consumer) {
+        if (points.test(PointKeys.pack(x, y)))
+            return;
+        for (int i = column.ceilingIndex(PointKeys.pack(x, Integer.MIN_VALUE)); i < column.size(); i++) {
+            if (column.x(i) != x)
+                break;
+            long bottomY = Math.min(y, column.y(i));
+            long sideLength = Math.abs((long) column.y(i) - y);
+            if (containsSide(points, x + sideLength, bottomY, sideLength))
+                consumer.accept(x, (int) bottomY, (int) sideLength, 0);
+            if (containsSide(points, x - sideLength, bottomY, sideLength))
+                consumer.accept((int) (x - sideLength), (int) bottomY, (int) sideLength, 0);
+        }
+    }
+
+    public static void detectInAnyOrientation(PointIndex index, int x, int y, SquareConsumer consumer) {
+        detectInAnyOrientation(IntStream.range(0, index.size()).mapToLong(index::key), index::contains, x, y, consumer);
+    }
+
+    /**
+     * Same as {@link #detectInAnyOrientation(PointIndex, int, int, SquareConsumer)} over the given keys, looking the
+     * other vertices up in {@code points}.
+     */
+    public static void detectInAnyOrientation(
+        LongStream keys,
+        LongPredicate points,
+        int x,
+        int y,
+        SquareConsumer consumer
+    ) {
+        if (points.test(PointKeys.pack(x, y)))
+            return;
+        keys.forEach(key -> {
+            int nextX = PointKeys.x(key);
+            int nextY = PointKeys.y(key);
+            long sideX = (long) nextX - x;
+            long sideY = (long) nextY - y;
+            if (Math.abs(sideX) > Integer.MAX_VALUE || Math.abs(sideY) > Integer.MAX_VALUE)
+                return;
+            long oppositeX = nextX - sideY;
+            long oppositeY = nextY + sideX;
+            long previousX = x - sideY;
+            long previousY = y + sideX;
+            if (!fitsInt(oppositeX) || !fitsInt(oppositeY) || !fitsInt(previousX) || !fitsInt(previousY))
+                return;
+            if (!points.test(PointKeys.pack((int) oppositeX, (int) oppositeY))
+                || !points.test(PointKeys.pack((int) previousX, (int) previousY)))
+                return;
+            if (sideX > 0 && sideY >= 0)
+                consumer.accept(x, y, (int) sideX, (int) sideY);
+            else if (sideY < 0 && sideX >= 0)
+                consumer.accept(nextX, nextY, (int) -sideY, (int) sideX);
+            else if (sideX < 0 && sideY <= 0)
+                consumer.accept((int) oppositeX, (int) oppositeY, (int) -sideX, (int) -sideY);
+            else
+                consumer.accept((int) previousX, (int) previousY, (int) sideY, (int) -sideX);
+        });
+    }
+
+    private static boolean containsSide(LongPredicate points, long x, long bottomY, long sideLength) {
+        long upperY = bottomY + sideLength;
+        return fitsInt(x) && fitsInt(upperY) && points.test(PointKeys.pack((int) x, (int) bottomY))
+            && points.test(PointKeys.pack((int) x, (int) upperY));
+    }
+
+    private static boolean fitsInt(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+}
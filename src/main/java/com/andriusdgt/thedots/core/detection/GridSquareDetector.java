@@ -0,0 +1,93 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointGrid;
+
+import java.util.Arrays;
+
+/**
+ * Finds squares with sides parallel to the axes on a {@link PointGrid}, a word at a time, in the order of
+ * {@link AxisAlignedSquareDetector}.
+ */
+public final class GridSquareDetector {
+
+    private GridSquareDetector() {
+    }
+
+    public static void detect(PointGrid grid, SquareConsumer consumer) {
+        int wordsPerColumn = grid.wordsPerColumn();
+        long[] common = new long[wordsPerColumn];
+        int[] rowStarts = new int[grid.height() + 1];
+        int[] rowPositions = new int[grid.height() + 1];
+        int[] rows = new int[16];
+        int[] sides = new int[16];
+        int[] sortedSides = new int[16];
+        for (int left = 0; left < grid.width(); left++) {
+            if (grid.columnSize(left) < 2)
+                continue;
+            int foundCount = 0;
+            for (int side = 1; left + side < grid.width() && side < grid.height(); side++) {
+                int right = left + side;
+                if (grid.columnSize(right) < 2 || !intersect(grid, left, right, common))
+                    continue;
+                int shiftWords = side >>> 6;
+                int shiftBits = side & 63;
+                for (int word = 0; word + shiftWords < wordsPerColumn; word++) {
+                    long bottoms = common[word] & shiftedWord(common, word + shiftWords, shiftBits);
+                    while (bottoms != 0) {
+                        if (foundCount == rows.length) {
+                            rows = Arrays.copyOf(rows, foundCount << 1);
+                            sides = Arrays.copyOf(sides, foundCount << 1);
+                        }
+                        rows[foundCount] = word * 64 + Long.numberOfTrailingZeros(bottoms);
+                        sides[foundCount++] = side;
+                        bottoms &= bottoms - 1;
+                    }
+                }
+            }
+            if (foundCount == 0)
+                continue;
+            if (sortedSides.length < foundCount)
+                sortedSides = new int[rows.length];
+            sortByRow(rows, sides, foundCount, rowStarts, rowPositions, sortedSides);
+            int x = grid.minX() + left;
+            for (int row = 0; row < grid.height(); row++)
+                for (int i = rowStarts[row]; i < rowStarts[row + 1]; i++)
+                    consumer.accept(x, grid.minY() + row, sortedSides[i], 0);
+        }
+    }
+
+    private static void sortByRow(
+        int[] rows,
+        int[] sides,
+        int count,
+        int[] rowStarts,
+        int[] rowPositions,
+        int[] sortedSides
+    ) {
+        Arrays.fill(rowStarts, 0);
+        for (int i = 0; i < count; i++)
+            rowStarts[rows[i] + 1]++;
+        for (int row = 1; row < rowStarts.length; row++)
+            rowStarts[row] += rowStarts[row - 1];
+        System.arraycopy(rowStarts, 0, rowPositions, 0, rowStarts.length);
+        for (int i = 0; i < count; i++)
+            sortedSides[rowPositions[rows[i]]++] = sides[i];
+    }
+
+    private static boolean intersect(PointGrid grid, int left, int right, long[] common) {
+        long any = 0;
+        for (int word = 0; word < common.length; word++) {
+            common[word] = grid.word(left, word) & grid.word(right, word);
+            any |= common[word];
+        }
+        return any != 0;
+    }
+
+    private static long shiftedWord(long[] bits, int word, int shiftBits) {
+        long shifted = bits[word] >>> shiftBits;
+        if (shiftBits != 0 && word + 1 < bits.length)
+            shifted |= bits[word + 1] << (64 - shiftBits);
+        return shifted;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs {@link AxisAlignedSquareDetector} on a fork-join pool, keeping the sequential result order.
+ */
+public final class ParallelSquareDetector {
+
+    private static final long PAIRS_PER_TASK = 1 << 16;
+
+    private ParallelSquareDetector() {
+    }
+
+    public static void detect(PointIndex index, ForkJoinPool pool, SquareConsumer consumer) {
+        long[] pairCountsBefore = new long[index.size() + 1];
+        for (int column = 0; column < index.columnCount(); column++)
+            for (int point = index.columnStart(column); point < index.columnEnd(column); point++)
+                pairCountsBefore[point + 1] = pairCountsBefore[point] + index.columnEnd(column) - point - 1;
+
+        pool.invoke(new DetectionTask(index, pairCountsBefore, 0, index.size())).forEach(consumer);
+    }
+
+    private static final class DetectionTask extends RecursiveTask<SquareBuffer> {
+
+        private final PointIndex index;
+        private final long[] pairCountsBefore;
+        private final int fromPoint;
+        private final int toPoint;
+
+        DetectionTask(PointIndex index, long[] pairCountsBefore, int fromPoint, int toPoint) {
+            this.index = index;
+            this.pairCountsBefore = pairCountsBefore;
+            this.fromPoint = fromPoint;
+            this.toPoint = toPoint;
+        }
+
+        @Override
+        protected SquareBuffer compute() {
+            long pairCount = pairCountsBefore[toPoint] - pairCountsBefore[fromPoint];
+            if (pairCount <= PAIRS_PER_TASK || toPoint - fromPoint < 2) {
+                SquareBuffer squares = new SquareBuffer();
+                AxisAlignedSquareDetector.detectFromBottoms(index, fromPoint, toPoint, squares);
+                return squares;
+            }
+
+            int middlePoint = findMiddle(pairCountsBefore[fromPoint] + pairCount / 2);
+            DetectionTask upperHalf = new DetectionTask(index, pairCountsBefore, middlePoint, toPoint);
+            upperHalf.fork();
+            SquareBuffer squares = new DetectionTask(index, pairCountsBefore, fromPoint, middlePoint).compute();
+            squares.addAll(upperHalf.join());
+            return squares;
+        }
+
+        private int findMiddle(long pairCount) {
+            int middle = Arrays.binarySearch(pairCountsBefore, fromPoint + 1, toPoint, pairCount);
+            if (middle < 0)
+                middle = -middle - 1;
+            return Math.min(Math.max(middle, fromPoint + 1), toPoint - 1);
+        }
+
+    }
+
+}
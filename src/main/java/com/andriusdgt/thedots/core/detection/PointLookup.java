@@ -0,0 +1,27 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointGrid;
+import com.andriusdgt.thedots.core.index.PointIndex;
+
+/**
+ * Membership test of the vertices a detector looks up.
+ */
+@FunctionalInterface
+interface PointLookup {
+
+    long MAX_GRID_WORDS = 1 << 21;
+
+    boolean contains(int x, int y);
+
+    /**
+     * Returns a bitset grid lookup for dense lists, a binary search of the index otherwise.
+     */
+    static PointLookup of(PointIndex index) {
+        long gridWords = PointGrid.wordCount(index);
+        long pointPairs = (long) index.size() * (index.size() - 1) / 2;
+        if (gridWords == 0 || gridWords > MAX_GRID_WORDS || gridWords > pointPairs)
+            return index::contains;
+        return PointGrid.of(index)::contains;
+    }
+
+}
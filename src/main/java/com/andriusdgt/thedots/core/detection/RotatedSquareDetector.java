@@ -0,0 +1,57 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+
+/**
+ * Finds squares of any orientation, including the ones parallel to the axes, ordered by their bottom left and then
+ * their bottom right vertex.
+ */
+public final class RotatedSquareDetector {
+
+    private RotatedSquareDetector() {
+    }
+
+    public static void detect(PointIndex index, SquareConsumer consumer) {
+        PointLookup points = PointLookup.of(index);
+        for (int column = 0; column < index.columnCount() - 1; column++)
+            for (int bottomLeft = index.columnStart(column); bottomLeft < index.columnEnd(column); bottomLeft++)
+                detectFrom(index, points, bottomLeft, index.columnEnd(column), consumer);
+    }
+
+    public static void detectFromBottom(PointIndex index, int bottomLeft, SquareConsumer consumer) {
+        detectFrom(index, index::contains, bottomLeft, index.columnEnd(index.columnOf(bottomLeft)), consumer);
+    }
+
+    private static void detectFrom(
+        PointIndex index,
+        PointLookup points,
+        int bottomLeft,
+        int firstCandidate,
+        SquareConsumer consumer
+    ) {
+        int leftX = index.x(bottomLeft);
+        int leftY = index.y(bottomLeft);
+        for (int bottomRight = firstCandidate; bottomRight < index.size(); bottomRight++) {
+            int rightX = index.x(bottomRight);
+            int rightY = index.y(bottomRight);
+            long sideX = (long) rightX - leftX;
+            long sideY = (long) rightY - leftY;
+            if (sideY < 0 || !fitsInt(sideX) || !fitsInt(sideY))
+                continue;
+            long upperLeftX = leftX - sideY;
+            long upperLeftY = leftY + sideX;
+            long upperRightX = rightX - sideY;
+            long upperRightY = rightY + sideX;
+            if (!fitsInt(upperLeftX) || !fitsInt(upperLeftY) || !fitsInt(upperRightX) || !fitsInt(upperRightY))
+                continue;
+            if (points.contains((int) upperLeftX, (int) upperLeftY)
+                && points.contains((int) upperRightX, (int) upperRightY))
+                consumer.accept(leftX, leftY, (int) sideX, (int) sideY);
+        }
+    }
+
+    private static boolean fitsInt(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.andriusdgt.thedots.core.detection;
+
+import java.util.Arrays;
+
+/**
+ * Collects detected squares and replays them in the order they were accepted.
+ */
+public final class SquareBuffer implements SquareConsumer {
+
+    private static final int FIELDS = 4;
+
+    private int[] values = new int[FIELDS * 16];
+    private int size;
+
+    @Override
+    public void accept(int bottomLeftX, int bottomLeftY, int sideX, int sideY) {
+        ensureCapacity(size + 1);
+        int offset = size * FIELDS;
+        values[offset] = bottomLeftX;
+        values[offset + 1] = bottomLeftY;
+        values[offset + 2] = sideX;
+        values[offset + 3] = sideY;
+        size++;
+    }
+
+    public void addAll(SquareBuffer other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.values, 0, values, size * FIELDS, other.size * FIELDS);
+        size += other.size;
+    }
+
+    public int x(int index) {
+        return values[index * FIELDS];
+    }
+
+    public int y(int index) {
+        return values[index * FIELDS + 1];
+    }
+
+    public int sideX(int index) {
+        return values[index * FIELDS + 2];
+    }
+
+    public int sideY(int index) {
+        return values[index * FIELDS + 3];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void forEach(SquareConsumer consumer) {
+        for (int offset = 0; offset < size * FIELDS; offset += FIELDS)
+            consumer.accept(values[offset], values[offset + 1], values[offset + 2], values[offset + 3]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int squareCount) {
+        if (squareCount * FIELDS > values.length)
+            values = Arrays.copyOf(values, Math.max(squareCount * FIELDS, values.length << 1));
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.andriusdgt.thedots.core.detection;
+
+/**
+ * Receives detected squares without allocating them. A square is given by its bottom left vertex, the lowest one and
+ * the leftmost of the lowest, and by the side vector to its bottom right vertex, which has a positive X and a
+ * non-negative Y component.
+ */
+@FunctionalInterface
+public interface SquareConsumer {
+
+    void accept(int bottomLeftX, int bottomLeftY, int sideX, int sideY);
+
+}
@@ -0,0 +1,19 @@
+package com.andriusdgt.thedots.core.detection;
+
+/**
+ * Counts detected squares without keeping them.
+ */
+public final class SquareCounter implements SquareConsumer {
+
+    private long count;
+
+    @Override
+    public void accept(int bottomLeftX, int bottomLeftY, int sideX, int sideY) {
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointKeys;
+
+/**
+ * Position of a square in the detection order, by its bottom left and then its bottom right vertex. Its text form is
+ * {@code "x,y,sideX,sideY"} of the last square seen.
+ */
+public final class SquareCursor {
+
+    private final long bottomLeftKey;
+    private final long bottomRightKey;
+    private final String text;
+
+    private SquareCursor(int x, int y, int sideX, int sideY) {
+        bottomLeftKey = PointKeys.pack(x, y);
+        bottomRightKey = PointKeys.pack(x + sideX, y + sideY);
+        text = x + "," + y + "," + sideX + "," + sideY;
+    }
+
+    public static SquareCursor after(int bottomLeftX, int bottomLeftY, int sideX, int sideY) {
+        return new SquareCursor(bottomLeftX, bottomLeftY, sideX, sideY);
+    }
+
+    public static SquareCursor parse(String text) {
+        String[] fields = text.split(",", -1);
+        if (fields.length != 4)
+            throw new IllegalArgumentException("Invalid square cursor " + text);
+        return new SquareCursor(
+            Integer.parseInt(fields[0]),
+            Integer.parseInt(fields[1]),
+            Integer.parseInt(fields[2]),
+            Integer.parseInt(fields[3])
+        );
+    }
+
+    long bottomLeftKey() {
+        return bottomLeftKey;
+    }
+
+    long bottomRightKey() {
+        return bottomRightKey;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
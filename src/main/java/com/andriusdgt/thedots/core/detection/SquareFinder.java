@@ -0,0 +1,111 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+import com.andriusdgt.thedots.core.model.Square;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+/**
+ * Square detection over any point set, without a repository. Squares come by bottom left vertex X, then Y, then side.
+ */
+public final class SquareFinder {
+
+    private static final Comparator<Square> SQUARE_ORDER = Comparator
+        .comparingInt(Square::getX)
+        .thenComparingInt(Square::getY)
+        .thenComparingInt(Square::getSideX)
+        .thenComparingInt(Square::getSideY);
+
+    private SquareFinder() {
+    }
+
+    public static List<Square> find(PointIndex index, String listId) {
+        List<Square> squares = new ArrayList<>();
+        AdaptiveSquareDetector.detect(
+            index,
+            (x, y, sideX, sideY) -> squares.add(new Square(x, y, sideX, sideY, listId))
+        );
+        return squares;
+    }
+
+    public static List<Square> findInAnyOrientation(PointIndex index, String listId) {
+        List<Square> squares = new ArrayList<>();
+        RotatedSquareDetector.detect(
+            index,
+            (x, y, sideX, sideY) -> squares.add(new Square(x, y, sideX, sideY, listId))
+        );
+        return squares;
+    }
+
+    public static long count(PointIndex index) {
+        SquareCounter counter = new SquareCounter();
+        AdaptiveSquareDetector.detect(index, counter);
+        return counter.getCount();
+    }
+
+    public static long countInAnyOrientation(PointIndex index) {
+        SquareCounter counter = new SquareCounter();
+        RotatedSquareDetector.detect(index, counter);
+        return counter.getCount();
+    }
+
+    /**
+     * Finds the squares with sides parallel to the axes adding the point {@code (x, y)} to the index would complete.
+     */
+    public static List<Square> findCompletedBy(PointIndex index, int x, int y, String listId) {
+        return findCompletedBy(index, index::contains, x, y, listId);
+    }
+
+    /**
+     * Same as {@link #findCompletedBy(PointIndex, int, int, String)} for points looked up one by one, given the point's
+     * X column.
+     */
+    public static List<Square> findCompletedBy(PointIndex column, LongPredicate points, int x, int y, String listId) {
+        List<Square> squares = new ArrayList<>();
+        CompletedSquareDetector.detect(
+            column,
+            points,
+            x,
+            y,
+            (squareX, squareY, sideX, sideY) -> squares.add(new Square(squareX, squareY, sideX, sideY, listId))
+        );
+        squares.sort(SQUARE_ORDER);
+        return squares;
+    }
+
+    public static List<Square> findInAnyOrientationCompletedBy(PointIndex index, int x, int y, String listId) {
+        List<Square> squares = new ArrayList<>();
+        CompletedSquareDetector.detectInAnyOrientation(
+            index,
+            x,
+            y,
+            (squareX, squareY, sideX, sideY) -> squares.add(new Square(squareX, squareY, sideX, sideY, listId))
+        );
+        squares.sort(SQUARE_ORDER);
+        return squares;
+    }
+
+    public static List<Square> findInAnyOrientationCompletedBy(
+        LongStream keys,
+        LongPredicate points,
+        int x,
+        int y,
+        String listId
+    ) {
+        List<Square> squares = new ArrayList<>();
+        CompletedSquareDetector.detectInAnyOrientation(
+            keys,
+            points,
+            x,
+            y,
+            (squareX, squareY, sideX, sideY) -> squares.add(new Square(squareX, squareY, sideX, sideY, listId))
+        );
+        squares.sort(SQUARE_ORDER);
+        return squares;
+    }
+
+}
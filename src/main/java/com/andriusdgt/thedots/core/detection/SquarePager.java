@@ -0,0 +1,55 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+import com.andriusdgt.thedots.core.index.PointKeys;
+
+/**
+ * Reports squares a page at a time, in the order of their bottom left and then their bottom right vertices.
+ */
+public final class SquarePager {
+
+    private SquarePager() {
+    }
+
+    /**
+     * Reports at most {@code limit} squares after the cursor, or from the first one when it is {@code null}. Returns
+     * the cursor of the last reported square when more squares follow, otherwise {@code null}.
+     */
+    public static SquareCursor detect(
+        PointIndex index,
+        BottomSquareDetector detector,
+        SquareCursor after,
+        int limit,
+        SquareConsumer consumer
+    ) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Invalid page size " + limit);
+        SquareBuffer buffer = new SquareBuffer();
+        int firstBottom = after == null ? 0 : index.ceilingIndex(after.bottomLeftKey());
+        int reported = 0;
+        int[] last = new int[4];
+        for (int bottom = firstBottom; bottom < index.size(); bottom++) {
+            buffer.clear();
+            detector.detectFromBottom(index, bottom, buffer);
+            boolean resumed = after != null && index.key(bottom) == after.bottomLeftKey();
+            for (int i = 0; i < buffer.size(); i++) {
+                if (resumed && bottomRightKey(buffer, i) <= after.bottomRightKey())
+                    continue;
+                if (reported == limit)
+                    return SquareCursor.after(last[0], last[1], last[2], last[3]);
+                last[0] = buffer.x(i);
+                last[1] = buffer.y(i);
+                last[2] = buffer.sideX(i);
+                last[3] = buffer.sideY(i);
+                consumer.accept(last[0], last[1], last[2], last[3]);
+                reported++;
+            }
+        }
+        return null;
+    }
+
+    private static long bottomRightKey(SquareBuffer buffer, int index) {
+        return PointKeys.pack(buffer.x(index) + buffer.sideX(index), buffer.y(index) + buffer.sideY(index));
+    }
+
+}
@@ -1,13 +1,25 @@
 package com.andriusdgt.thedots.core.factory;
 
+import com.andriusdgt.thedots.core.io.PointTextHandler;
+import com.andriusdgt.thedots.core.io.PointTextParser;
 import com.andriusdgt.thedots.core.model.Point;
 
 public final class PointFactory {
 
     public static Point from(String pointsLine, String listId) {
-        int x = Integer.parseInt(pointsLine.split(" ")[0]);
-        int y = Integer.parseInt(pointsLine.split(" ")[1]);
-        return new Point(x, y, listId);
+        Point[] point = new Point[1];
+        PointTextParser.parseLine(pointsLine, new PointTextHandler() {
+            @Override
+            public void onPoint(int x, int y) {
+                point[0] = new Point(x, y, listId);
+            }
+
+            @Override
+            public void onMalformedLine() {
+                throw new NumberFormatException("Incorrectly formatted point: " + pointsLine);
+            }
+        });
+        return point[0];
     }
 
 }
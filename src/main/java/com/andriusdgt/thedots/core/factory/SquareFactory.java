@@ -4,16 +4,16 @@ import com.andriusdgt.thedots.core.model.Point;
 import com.andriusdgt.thedots.core.model.Square;
 import com.andriusdgt.thedots.core.model.SquareVertex;
 
-import static com.andriusdgt.thedots.core.model.SquareVertex.BOTTOM_LEFT;
-import static com.andriusdgt.thedots.core.model.SquareVertex.UPPER_LEFT;
-
 public final class SquareFactory {
 
+    /**
+     * Returns the vertex following the given left vertex along the square's bottom side vector, in any orientation.
+     */
     public static Point newRightPoint(Square square, SquareVertex leftVertex) {
         Point leftPoint = getPoint(leftVertex, square);
         return new Point(
-            leftPoint.getX() + getSideLength(square),
-            leftPoint.getY(),
+            leftPoint.getX() + square.getSideX(),
+            leftPoint.getY() + square.getSideY(),
             leftPoint.getListId()
         );
     }
@@ -22,8 +22,13 @@ public final class SquareFactory {
         return square.getVertices().get(vertex);
     }
 
+    /**
+     * Returns the side length of a square with sides parallel to the axes, the only squares with an integer one.
+     */
     public static int getSideLength(Square sq) {
-        return Math.abs(sq.getVertices().get(UPPER_LEFT).getY() - sq.getVertices().get(BOTTOM_LEFT).getY());
+        if (sq.getSideY() != 0)
+            throw new IllegalArgumentException("Square sides are not parallel to the axes");
+        return Math.abs(sq.getSideX());
     }
 
 
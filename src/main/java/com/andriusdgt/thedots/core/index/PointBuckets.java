@@ -0,0 +1,204 @@
+package com.andriusdgt.thedots.core.index;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index of a point list in square cells of a power of two side, answering box queries from the cells
+ * overlapping the box. Not thread-safe.
+ */
+public final class PointBuckets {
+
+    private static final int POINTS_PER_CELL = 4;
+    private static final int MIN_REBUILD_SIZE = 64;
+
+    private int shift;
+    private long[] cellKeys;
+    private long[][] cellPoints;
+    private int[] cellSizes;
+    private int cellCount;
+    private int size;
+    private int builtSize;
+
+    private PointBuckets() {
+    }
+
+    public static PointBuckets of(long[] keys) {
+        PointBuckets buckets = new PointBuckets();
+        buckets.build(keys);
+        return buckets;
+    }
+
+    public boolean add(long key) {
+        long cellKey = cellKey(PointKeys.x(key), PointKeys.y(key), shift);
+        int cell = Arrays.binarySearch(cellKeys, 0, cellCount, cellKey);
+        if (cell < 0) {
+            cell = -cell - 1;
+            insertCell(cell, cellKey);
+        } else if (indexInCell(cell, key) >= 0)
+            return false;
+        if (cellSizes[cell] == cellPoints[cell].length)
+            cellPoints[cell] = Arrays.copyOf(cellPoints[cell], cellSizes[cell] << 1);
+        cellPoints[cell][cellSizes[cell]++] = key;
+        if (++size > Math.max(MIN_REBUILD_SIZE, builtSize << 1))
+            build(keys());
+        return true;
+    }
+
+    public boolean remove(long key) {
+        int cell = Arrays.binarySearch(cellKeys, 0, cellCount, cellKey(PointKeys.x(key), PointKeys.y(key), shift));
+        int index = cell < 0 ? -1 : indexInCell(cell, key);
+        if (index < 0)
+            return false;
+        cellPoints[cell][index] = cellPoints[cell][--cellSizes[cell]];
+        if (cellSizes[cell] == 0)
+            removeCell(cell);
+        if (--size < builtSize >> 2 && builtSize > MIN_REBUILD_SIZE)
+            build(keys());
+        return true;
+    }
+
+    /**
+     * Returns the keys of the points with {@code x1 <= x <= x2} and {@code y1 <= y <= y2}, sorted by X then Y.
+     */
+    public long[] keysWithin(int x1, int y1, int x2, int y2) {
+        if (x1 > x2 || y1 > y2)
+            return new long[0];
+        int cellX2 = x2 >> shift;
+        int cellY1 = y1 >> shift;
+        int cellY2 = y2 >> shift;
+        long[] found = new long[16];
+        int foundCount = 0;
+        int cell = ceilingCell(PointKeys.pack(x1 >> shift, cellY1));
+        while (cell < cellCount) {
+            int cellX = PointKeys.x(cellKeys[cell]);
+            int cellY = PointKeys.y(cellKeys[cell]);
+            if (cellX > cellX2)
+                break;
+            if (cellY < cellY1) {
+                cell = ceilingCell(PointKeys.pack(cellX, cellY1));
+                continue;
+            }
+            if (cellY > cellY2) {
+                if (cellX == cellX2)
+                    break;
+                cell = ceilingCell(PointKeys.pack(cellX + 1, cellY1));
+                continue;
+            }
+            for (int i = 0; i < cellSizes[cell]; i++) {
+                long key = cellPoints[cell][i];
+                int x = PointKeys.x(key);
+                int y = PointKeys.y(key);
+                if (x < x1 || x > x2 || y < y1 || y > y2)
+                    continue;
+                if (foundCount == found.length)
+                    found = Arrays.copyOf(found, foundCount << 1);
+                found[foundCount++] = key;
+            }
+            cell++;
+        }
+        found = Arrays.copyOf(found, foundCount);
+        Arrays.sort(found);
+        return found;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void build(long[] keys) {
+        shift = shiftOf(keys);
+        long[] pointCells = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            pointCells[i] = cellKey(PointKeys.x(keys[i]), PointKeys.y(keys[i]), shift);
+        long[] sortedCells = pointCells.clone();
+        Arrays.sort(sortedCells);
+        cellCount = 0;
+        for (int i = 0; i < sortedCells.length; i++)
+            if (i == 0 || sortedCells[i] != sortedCells[i - 1])
+                sortedCells[cellCount++] = sortedCells[i];
+        cellKeys = Arrays.copyOf(sortedCells, Math.max(cellCount, 1));
+        cellSizes = new int[cellKeys.length];
+        int[] pointCellIndexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            pointCellIndexes[i] = Arrays.binarySearch(cellKeys, 0, cellCount, pointCells[i]);
+            cellSizes[pointCellIndexes[i]]++;
+        }
+        cellPoints = new long[cellKeys.length][];
+        for (int cell = 0; cell < cellKeys.length; cell++)
+            cellPoints[cell] = new long[Math.max(cellSizes[cell], 1)];
+        Arrays.fill(cellSizes, 0);
+        for (int i = 0; i < keys.length; i++)
+            cellPoints[pointCellIndexes[i]][cellSizes[pointCellIndexes[i]]++] = keys[i];
+        size = keys.length;
+        builtSize = keys.length;
+    }
+
+    private long[] keys() {
+        long[] keys = new long[size];
+        int count = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            System.arraycopy(cellPoints[cell], 0, keys, count, cellSizes[cell]);
+            count += cellSizes[cell];
+        }
+        return keys;
+    }
+
+    private void insertCell(int cell, long cellKey) {
+        if (cellCount == cellKeys.length) {
+            cellKeys = Arrays.copyOf(cellKeys, cellCount << 1);
+            cellPoints = Arrays.copyOf(cellPoints, cellCount << 1);
+            cellSizes = Arrays.copyOf(cellSizes, cellCount << 1);
+        }
+        System.arraycopy(cellKeys, cell, cellKeys, cell + 1, cellCount - cell);
+        System.arraycopy(cellPoints, cell, cellPoints, cell + 1, cellCount - cell);
+        System.arraycopy(cellSizes, cell, cellSizes, cell + 1, cellCount - cell);
+        cellKeys[cell] = cellKey;
+        cellPoints[cell] = new long[2];
+        cellSizes[cell] = 0;
+        cellCount++;
+    }
+
+    private void removeCell(int cell) {
+        System.arraycopy(cellKeys, cell + 1, cellKeys, cell, cellCount - cell - 1);
+        System.arraycopy(cellPoints, cell + 1, cellPoints, cell, cellCount - cell - 1);
+        System.arraycopy(cellSizes, cell + 1, cellSizes, cell, cellCount - cell - 1);
+        cellPoints[--cellCount] = null;
+    }
+
+    private int indexInCell(int cell, long key) {
+        for (int i = 0; i < cellSizes[cell]; i++)
+            if (cellPoints[cell][i] == key)
+                return i;
+        return -1;
+    }
+
+    private int ceilingCell(long cellKey) {
+        int index = Arrays.binarySearch(cellKeys, 0, cellCount, cellKey);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static long cellKey(int x, int y, int shift) {
+        return PointKeys.pack(x >> shift, y >> shift);
+    }
+
+    private static int shiftOf(long[] keys) {
+        if (keys.length == 0)
+            return 0;
+        long minX = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE;
+        long minY = Long.MAX_VALUE;
+        long maxY = Long.MIN_VALUE;
+        for (long key : keys) {
+            minX = Math.min(minX, PointKeys.x(key));
+            maxX = Math.max(maxX, PointKeys.x(key));
+            minY = Math.min(minY, PointKeys.y(key));
+            maxY = Math.max(maxY, PointKeys.y(key));
+        }
+        double cellArea = (double) (maxX - minX + 1) * (maxY - minY + 1) * POINTS_PER_CELL / keys.length;
+        int shift = 0;
+        while (shift < 31 && Math.pow(4, shift + 1) <= cellArea)
+            shift++;
+        return shift;
+    }
+
+}
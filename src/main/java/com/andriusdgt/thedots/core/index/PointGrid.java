@@ -0,0 +1,111 @@
+package com.andriusdgt.thedots.core.index;
+
+/**
+ * Bitset of a point list over the bounding box of its points, one bit per grid cell, laid out column by column with Y
+ * growing from the lowest bit.
+ */
+public final class PointGrid {
+
+    private static final int WORD_BITS = 64;
+
+    private final int minX;
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final int wordsPerColumn;
+    private final long[] words;
+    private final int[] columnSizes;
+
+    private PointGrid(int minX, int minY, int width, int height) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.wordsPerColumn = (height + WORD_BITS - 1) / WORD_BITS;
+        this.words = new long[width * wordsPerColumn];
+        this.columnSizes = new int[width];
+    }
+
+    public static PointGrid of(PointIndex index) {
+        if (index.size() == 0)
+            return new PointGrid(0, 0, 0, 0);
+        int minX = index.x(0);
+        int minY = minY(index);
+        PointGrid grid = new PointGrid(minX, minY, Math.toIntExact(width(index)), Math.toIntExact(height(index, minY)));
+        for (int i = 0; i < index.size(); i++) {
+            int column = index.x(i) - minX;
+            int row = index.y(i) - minY;
+            grid.words[column * grid.wordsPerColumn + (row >>> 6)] |= 1L << row;
+            grid.columnSizes[column]++;
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the number of words a grid over the indexed points takes, without building it.
+     */
+    public static long wordCount(PointIndex index) {
+        if (index.size() == 0)
+            return 0;
+        return width(index) * ((height(index, minY(index)) + WORD_BITS - 1) / WORD_BITS);
+    }
+
+    public boolean contains(int x, int y) {
+        long column = (long) x - minX;
+        long row = (long) y - minY;
+        if (column < 0 || column >= width || row < 0 || row >= height)
+            return false;
+        return (words[(int) column * wordsPerColumn + (int) (row >>> 6)] & 1L << row) != 0;
+    }
+
+    public int minX() {
+        return minX;
+    }
+
+    public int minY() {
+        return minY;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int wordsPerColumn() {
+        return wordsPerColumn;
+    }
+
+    public int columnSize(int column) {
+        return columnSizes[column];
+    }
+
+    /**
+     * Returns a word of the column at the given offset from {@link #minX()}, its bit {@code b} stands for the row
+     * {@code 64 * word + b} above {@link #minY()}.
+     */
+    public long word(int column, int word) {
+        return words[column * wordsPerColumn + word];
+    }
+
+    private static long width(PointIndex index) {
+        return (long) index.x(index.size() - 1) - index.x(0) + 1;
+    }
+
+    private static long height(PointIndex index, int minY) {
+        int maxY = minY;
+        for (int i = 0; i < index.size(); i++)
+            maxY = Math.max(maxY, index.y(i));
+        return (long) maxY - minY + 1;
+    }
+
+    private static int minY(PointIndex index) {
+        int minY = Integer.MAX_VALUE;
+        for (int i = 0; i < index.size(); i++)
+            minY = Math.min(minY, index.y(i));
+        return minY;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.andriusdgt.thedots.core.index;
+
+import com.andriusdgt.thedots.core.model.Point;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable snapshot of a point list: distinct packed keys sorted by X and then by Y, with the offsets of every X
+ * column.
+ */
+public final class PointIndex {
+
+    private final long[] keys;
+    private final int[] columnStarts;
+    private final PointKeySet keySet;
+
+    private PointIndex(long[] sortedDistinctKeys) {
+        keys = sortedDistinctKeys;
+        keySet = PointKeySet.of(keys);
+        columnStarts = findColumnStarts(keys);
+    }
+
+    public static PointIndex of(Collection<Point> points) {
+        long[] keys = new long[points.size()];
+        int i = 0;
+        for (Point point : points)
+            keys[i++] = PointKeys.pack(point);
+        return of(keys);
+    }
+
+    public static PointIndex of(int[] xs, int[] ys) {
+        if (xs.length != ys.length)
+            throw new IllegalArgumentException("Got " + xs.length + " X and " + ys.length + " Y coordinates");
+        long[] keys = new long[xs.length];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = PointKeys.pack(xs[i], ys[i]);
+        return of(keys);
+    }
+
+    /**
+     * Indexes the remaining coordinates of the buffer, read as {@code x, y} pairs without changing its position.
+     */
+    public static PointIndex of(IntBuffer coordinates) {
+        int start = coordinates.position();
+        int remaining = coordinates.remaining();
+        if (remaining % 2 != 0)
+            throw new IllegalArgumentException("Got an odd number of coordinates " + remaining);
+        long[] keys = new long[remaining / 2];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = PointKeys.pack(coordinates.get(start + 2 * i), coordinates.get(start + 2 * i + 1));
+        return of(keys);
+    }
+
+    public static PointIndex of(long[] keys) {
+        long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        int distinctCount = 0;
+        for (int i = 0; i < sortedKeys.length; i++)
+            if (i == 0 || sortedKeys[i] != sortedKeys[i - 1])
+                sortedKeys[distinctCount++] = sortedKeys[i];
+        return new PointIndex(Arrays.copyOf(sortedKeys, distinctCount));
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public long key(int index) {
+        return keys[index];
+    }
+
+    public int x(int index) {
+        return PointKeys.x(keys[index]);
+    }
+
+    public int y(int index) {
+        return PointKeys.y(keys[index]);
+    }
+
+    /**
+     * Returns the position of the first key not less than the given one, or the size if there is none.
+     */
+    public int ceilingIndex(long key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    public boolean contains(int x, int y) {
+        return keySet.contains(x, y);
+    }
+
+    public boolean contains(long key) {
+        return keySet.contains(key);
+    }
+
+    public int columnCount() {
+        return columnStarts.length - 1;
+    }
+
+    public int columnStart(int column) {
+        return columnStarts[column];
+    }
+
+    public int columnEnd(int column) {
+        return columnStarts[column + 1];
+    }
+
+    public int columnOf(int index) {
+        int column = Arrays.binarySearch(columnStarts, index);
+        return column >= 0 ? column : -column - 2;
+    }
+
+    private static int[] findColumnStarts(long[] keys) {
+        int[] starts = new int[keys.length + 1];
+        int columnCount = 0;
+        for (int i = 0; i < keys.length; i++)
+            if (i == 0 || PointKeys.x(keys[i]) != PointKeys.x(keys[i - 1]))
+                starts[columnCount++] = i;
+        starts[columnCount] = keys.length;
+        return Arrays.copyOf(starts, columnCount + 1);
+    }
+
+}
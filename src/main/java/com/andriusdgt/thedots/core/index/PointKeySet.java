@@ -0,0 +1,165 @@
+package com.andriusdgt.thedots.core.index;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of packed point keys, see {@link PointKeys}. Not thread-safe.
+ */
+public final class PointKeySet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsEmptyKey;
+
+    public PointKeySet() {
+        this(MIN_CAPACITY);
+    }
+
+    public PointKeySet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public static PointKeySet of(long... keys) {
+        PointKeySet set = new PointKeySet(keys.length);
+        for (long key : keys)
+            set.add(key);
+        return set;
+    }
+
+    public boolean contains(int x, int y) {
+        return contains(PointKeys.pack(x, y));
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY)
+            return containsEmptyKey;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long stored = table[slot];
+            if (stored == key)
+                return true;
+            if (stored == EMPTY)
+                return false;
+        }
+    }
+
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmptyKey)
+                return false;
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        int slot = slot(key);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        if (++size > (mask + 1) >> 1)
+            rehash((mask + 1) << 1);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!containsEmptyKey)
+                return false;
+            containsEmptyKey = false;
+            size--;
+            return true;
+        }
+        int slot = slot(key);
+        while (table[slot] != key) {
+            if (table[slot] == EMPTY)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsEmptyKey)
+            action.accept(EMPTY);
+        for (long key : table)
+            if (key != EMPTY)
+                action.accept(key);
+    }
+
+    public long[] toArray() {
+        long[] keys = new long[size];
+        int i = 0;
+        if (containsEmptyKey)
+            keys[i++] = EMPTY;
+        for (long key : table)
+            if (key != EMPTY)
+                keys[i++] = key;
+        return keys;
+    }
+
+    public long[] toSortedArray() {
+        long[] keys = toArray();
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private void shiftBack(int freedSlot) {
+        int gap = freedSlot;
+        for (int slot = (gap + 1) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slot(table[slot]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldTable = table;
+        allocate(capacity);
+        for (long key : oldTable) {
+            if (key == EMPTY)
+                continue;
+            int slot = slot(key);
+            while (table[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            table[slot] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity >> 1 < expectedSize)
+            capacity <<= 1;
+        return capacity;
+    }
+
+}
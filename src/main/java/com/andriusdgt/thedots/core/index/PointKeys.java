@@ -0,0 +1,29 @@
+package com.andriusdgt.thedots.core.index;
+
+import com.andriusdgt.thedots.core.model.Point;
+
+/**
+ * Packs a point's coordinates into a {@code long} comparing the same way as points ordered by X and then by Y.
+ */
+public final class PointKeys {
+
+    private PointKeys() {
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | ((y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    public static long pack(Point point) {
+        return pack(point.getX(), point.getY());
+    }
+
+    public static int x(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int y(long key) {
+        return (int) key ^ Integer.MIN_VALUE;
+    }
+
+}
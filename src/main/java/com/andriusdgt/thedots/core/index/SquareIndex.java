@@ -0,0 +1,126 @@
+package com.andriusdgt.thedots.core.index;
+
+import com.andriusdgt.thedots.core.detection.AxisAlignedSquareDetector;
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.model.Square;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Axis-aligned squares of a single point list, kept up to date as points are added and removed.
+ */
+public final class SquareIndex {
+
+    private static final Comparator<Square> SQUARE_ORDER = Comparator
+        .comparingInt(Square::getX)
+        .thenComparingInt(Square::getY)
+        .thenComparingInt(Square::getSideX);
+
+    private final String listId;
+    private final PointKeySet points = new PointKeySet();
+    private final Map<Integer, Column> columns = new HashMap<>();
+    private final NavigableSet<Square> squares = new TreeSet<>(SQUARE_ORDER);
+
+    public SquareIndex(String listId) {
+        this.listId = listId;
+    }
+
+    public static SquareIndex of(String listId, Collection<Point> points) {
+        SquareIndex squareIndex = new SquareIndex(listId);
+        PointIndex pointIndex = PointIndex.of(points);
+        for (int i = 0; i < pointIndex.size(); i++)
+            squareIndex.addPoint(pointIndex.x(i), pointIndex.y(i));
+        AxisAlignedSquareDetector.detect(
+            pointIndex,
+            (x, y, sideX, sideY) -> squareIndex.squares.add(squareIndex.newSquare(x, y, sideX))
+        );
+        return squareIndex;
+    }
+
+    public synchronized void add(int x, int y) {
+        if (!addPoint(x, y))
+            return;
+        forEachSquareOf(x, y, squares::add);
+    }
+
+    public synchronized void remove(int x, int y) {
+        if (!points.contains(x, y))
+            return;
+        forEachSquareOf(x, y, squares::remove);
+        points.remove(PointKeys.pack(x, y));
+        Column column = columns.get(x);
+        column.remove(y);
+        if (column.size == 0)
+            columns.remove(x);
+    }
+
+    public synchronized List<Square> getSquares() {
+        return new ArrayList<>(squares);
+    }
+
+    /**
+     * Returns the squares adding the point would complete, in the order of {@link #getSquares()}, without adding it.
+     */
+    public synchronized List<Square> findCompletedBy(int x, int y) {
+        if (points.contains(x, y) || !columns.containsKey(x))
+            return new ArrayList<>();
+        List<Square> completed = new ArrayList<>();
+        forEachSquareOf(x, y, completed::add);
+        completed.sort(SQUARE_ORDER);
+        return completed;
+    }
+
+    public synchronized int size() {
+        return squares.size();
+    }
+
+    private boolean addPoint(int x, int y) {
+        if (!points.add(PointKeys.pack(x, y)))
+            return false;
+        columns.computeIfAbsent(x, key -> new Column()).add(y);
+        return true;
+    }
+
+    private void forEachSquareOf(int x, int y, Consumer<Square> action) {
+        Column column = columns.get(x);
+        for (int i = 0; i < column.size; i++) {
+            int otherY = column.ys[i];
+            if (otherY == y)
+                continue;
+            int bottomY = Math.min(y, otherY);
+            int upperY = Math.max(y, otherY);
+            int sideLength = upperY - bottomY;
+            if (points.contains(x + sideLength, bottomY) && points.contains(x + sideLength, upperY))
+                action.accept(newSquare(x, bottomY, sideLength));
+            if (points.contains(x - sideLength, bottomY) && points.contains(x - sideLength, upperY))
+                action.accept(newSquare(x - sideLength, bottomY, sideLength));
+        }
+    }
+
+    private Square newSquare(int x, int y, int sideLength) {
+        return new Square(x, y, sideLength, 0, listId);
+    }
+
+    private static final class Column {
+
+        private int[] ys = new int[4];
+        private int size;
+
+        void add(int y) {
+            if (size == ys.length)
+                ys = Arrays.copyOf(ys, size << 1);
+            ys[size++] = y;
+        }
+
+        void remove(int y) {
+            for (int i = 0; i < size; i++)
+                if (ys[i] == y) {
+                    ys[i] = ys[--size];
+                    return;
+                }
+        }
+
+    }
+
+}
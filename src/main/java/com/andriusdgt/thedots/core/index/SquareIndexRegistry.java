@@ -0,0 +1,57 @@
+package com.andriusdgt.thedots.core.index;
+
+import com.andriusdgt.thedots.core.listener.PointChangeListener;
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.repository.PointRepository;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds a {@link SquareIndex} per point list, maintained from point change notifications, so the same registry should
+ * be given to every service writing points.
+ */
+public final class SquareIndexRegistry implements PointChangeListener {
+
+    private final PointRepository pointRepository;
+    private final ConcurrentMap<String, SquareIndex> indexes = new ConcurrentHashMap<>();
+
+    public SquareIndexRegistry(PointRepository pointRepository) {
+        this.pointRepository = pointRepository;
+    }
+
+    public SquareIndex get(String listId) {
+        return indexes.computeIfAbsent(
+            listId,
+            id -> SquareIndex.of(id, pointRepository.findByListIdOrderByXAscYAsc(id))
+        );
+    }
+
+    public void invalidate(String listId) {
+        indexes.remove(listId);
+    }
+
+    @Override
+    public void pointsAdded(String listId, Collection<Point> points) {
+        indexes.computeIfPresent(listId, (id, squareIndex) -> {
+            for (Point point : points)
+                squareIndex.add(point.getX(), point.getY());
+            return squareIndex;
+        });
+    }
+
+    @Override
+    public void pointRemoved(Point point) {
+        indexes.computeIfPresent(point.getListId(), (id, squareIndex) -> {
+            squareIndex.remove(point.getX(), point.getY());
+            return squareIndex;
+        });
+    }
+
+    @Override
+    public void listCleared(String listId) {
+        invalidate(listId);
+    }
+
+}
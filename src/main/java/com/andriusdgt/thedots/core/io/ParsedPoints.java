@@ -0,0 +1,62 @@
+package com.andriusdgt.thedots.core.io;
+
+import com.andriusdgt.thedots.core.index.PointKeys;
+
+import java.util.Arrays;
+
+/**
+ * Points parsed for a single list, kept as packed keys in parsing order together with the number of malformed lines.
+ */
+public final class ParsedPoints {
+
+    private long[] keys = new long[16];
+    private int size;
+    private long malformedLineCount;
+
+    public int size() {
+        return size;
+    }
+
+    public long getMalformedLineCount() {
+        return malformedLineCount;
+    }
+
+    public void replay(PointTextHandler handler) {
+        for (int i = 0; i < size; i++)
+            handler.onPoint(PointKeys.x(keys[i]), PointKeys.y(keys[i]));
+        for (long i = 0; i < malformedLineCount; i++)
+            handler.onMalformedLine();
+    }
+
+    void addPoint(int x, int y) {
+        if (size == keys.length)
+            keys = Arrays.copyOf(keys, size << 1);
+        keys[size++] = PointKeys.pack(x, y);
+    }
+
+    void addMalformedLine() {
+        malformedLineCount++;
+    }
+
+    /**
+     * Appends the other points, possibly taking their keys over, so the other points must not be changed afterwards.
+     */
+    void addAll(ParsedPoints points) {
+        if (size == 0) {
+            keys = points.keys;
+            size = points.size;
+            malformedLineCount += points.malformedLineCount;
+            return;
+        }
+        if (size + points.size > keys.length)
+            keys = Arrays.copyOf(keys, Math.max(size + points.size, size << 1));
+        System.arraycopy(points.keys, 0, keys, size, points.size);
+        size += points.size;
+        malformedLineCount += points.malformedLineCount;
+    }
+
+    boolean isEmpty() {
+        return size == 0 && malformedLineCount == 0;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.andriusdgt.thedots.core.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Parses the binary format {@link PointBinaryWriter} writes, reporting every point to the handler as it is decoded.
+ * Malformed input fails with an {@link IOException} after the points decoded up to there have been reported.
+ */
+public final class PointBinaryParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private PointBinaryParser(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    public static void parse(ReadableByteChannel channel, PointTextHandler handler) throws IOException {
+        new PointBinaryParser(channel).parseInto(handler);
+    }
+
+    private void parseInto(PointTextHandler handler) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8)
+            if (readByte() != (PointBinaryWriter.MAGIC >>> shift & 0xFF))
+                throw malformed("not a binary point list");
+        int version = readByte();
+        if (version != PointBinaryWriter.VERSION)
+            throw malformed("unsupported version " + version);
+        for (long nameLength = readVarint(); nameLength > 0; nameLength--)
+            readByte();
+        long pointCount = readVarint();
+        long minX = readZigzag();
+        long minY = readZigzag();
+        long maxX = readZigzag();
+        long maxY = readZigzag();
+
+        long x = minX;
+        long y = minY;
+        for (long i = 0; i < pointCount; i++) {
+            long columnDistance = readVarint();
+            long rowDistance = readVarint();
+            if (i == 0 || columnDistance != 0)
+                y = minY;
+            if (columnDistance < 0 || columnDistance > maxX - x || rowDistance < 0 || rowDistance > maxY - y)
+                throw malformed("point out of the header bounds");
+            x += columnDistance;
+            y += rowDistance;
+            handler.onPoint((int) x, (int) y);
+        }
+        if (buffer.hasRemaining() || fill())
+            throw malformed("data after the last point");
+    }
+
+    private long readZigzag() throws IOException {
+        long value = readVarint();
+        if ((value & ~0xFFFFFFFFL) != 0)
+            throw malformed("bound out of the int range");
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int i = 0; i < MAX_VARINT_SIZE; i++) {
+            int next = readByte();
+            value |= (long) (next & 0x7F) << 7 * i;
+            if ((next & 0x80) == 0)
+                return value;
+        }
+        throw malformed("varint longer than " + MAX_VARINT_SIZE + " bytes");
+    }
+
+    private int readByte() throws IOException {
+        if (!buffer.hasRemaining() && !fill())
+            throw malformed("unexpected end of input");
+        return buffer.get() & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int count;
+        do {
+            count = channel.read(buffer);
+        } while (count == 0);
+        buffer.flip();
+        return count > 0;
+    }
+
+    private static IOException malformed(String reason) {
+        return new IOException("Malformed binary point list, " + reason);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.andriusdgt.thedots.core.io;
+
+import com.andriusdgt.thedots.core.index.PointKeys;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes points in the binary format {@link PointBinaryParser} reads: a header with the magic {@code "DOTS"}, a
+ * version, the list name, the point count and the bounds, then the points sorted by X and Y as varint deltas. Not
+ * thread-safe.
+ */
+public final class PointBinaryWriter {
+
+    static final int MAGIC = 0x444F5453;
+    static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long remainingCount = -1;
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+    private long previousKey;
+    private boolean firstPoint = true;
+
+    public PointBinaryWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public void writeHeader(String listName, long pointCount, int minX, int minY, int maxX, int maxY)
+        throws IOException {
+        if (remainingCount != -1)
+            throw new IllegalStateException("Header is already written");
+        if (pointCount < 0)
+            throw new IllegalArgumentException("Invalid point count " + pointCount);
+        byte[] name = listName.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        putVarint(name.length);
+        for (int offset = 0; offset < name.length; ) {
+            if (!buffer.hasRemaining())
+                drain();
+            int length = Math.min(buffer.remaining(), name.length - offset);
+            buffer.put(name, offset, length);
+            offset += length;
+        }
+        if (buffer.remaining() < 5 * MAX_VARINT_SIZE)
+            drain();
+        putVarint(pointCount);
+        putVarint(zigzag(minX));
+        putVarint(zigzag(minY));
+        putVarint(zigzag(maxX));
+        putVarint(zigzag(maxY));
+        this.remainingCount = pointCount;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.previousKey = PointKeys.pack(minX, minY);
+    }
+
+    /**
+     * Writes the next point, which has to follow the previous one in X then Y order and lie within the header bounds.
+     */
+    public void write(int x, int y) throws IOException {
+        long key = PointKeys.pack(x, y);
+        if (remainingCount <= 0)
+            throw new IllegalStateException("More points than the header count");
+        if (x < minX || x > maxX || y < minY || y > maxY)
+            throw new IllegalArgumentException("Point " + x + " " + y + " is out of the header bounds");
+        if (!firstPoint && key <= previousKey)
+            throw new IllegalArgumentException("Point " + x + " " + y + " is out of order");
+        if (buffer.remaining() < 2 * MAX_VARINT_SIZE)
+            drain();
+        long columnDistance = (long) x - PointKeys.x(previousKey);
+        putVarint(columnDistance);
+        putVarint(firstPoint || columnDistance != 0 ? (long) y - minY : (long) y - PointKeys.y(previousKey));
+        previousKey = key;
+        firstPoint = false;
+        remainingCount--;
+    }
+
+    public void flush() throws IOException {
+        if (remainingCount != 0)
+            throw new IllegalStateException("Point count differs from the header count");
+        drain();
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long zigzag(int value) {
+        return (value << 1 ^ value >> 31) & 0xFFFFFFFFL;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+}
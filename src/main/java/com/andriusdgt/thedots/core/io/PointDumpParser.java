@@ -0,0 +1,156 @@
+package com.andriusdgt.thedots.core.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Parses a point dump, a file holding the points of several lists. A line starting with {@code @} names the list of the
+ * following {@code "x y"} lines, lines before the first one make the dump malformed.
+ */
+public final class PointDumpParser {
+
+    static final int REGION_SIZE = 1 << 24;
+
+    private static final int BOUNDARY_SCAN_SIZE = 1 << 12;
+    private static final byte LIST_MARKER = '@';
+
+    private PointDumpParser() {
+    }
+
+    /**
+     * Returns the points of every list of the dump in the order of the list's first appearance.
+     */
+    public static Map<String, ParsedPoints> parse(Path file, ForkJoinPool pool) throws IOException {
+        return parse(file, pool, REGION_SIZE);
+    }
+
+    static Map<String, ParsedPoints> parse(Path file, ForkJoinPool pool, int regionSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            List<Callable<List<Section>>> regions = new ArrayList<>();
+            long size = channel.size();
+            for (long start = 0; start < size; ) {
+                long end = lineStartAfter(channel, Math.min(start + regionSize, size) - 1, size);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                regions.add(() -> parseRegion(region));
+                start = end;
+            }
+            return merge(awaitAll(pool.invokeAll(regions)));
+        }
+    }
+
+    private static long lineStartAfter(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int count = channel.read(buffer, position);
+            for (int i = 0; i < count; i++)
+                if (buffer.get(i) == '\n')
+                    return position + i + 1;
+            position += Math.max(count, 0);
+        }
+        return size;
+    }
+
+    private static List<Section> parseRegion(ByteBuffer region) {
+        List<Section> sections = new ArrayList<>();
+        Section section = new Section(null);
+        sections.add(section);
+        PointTextParser parser = new PointTextParser(section);
+        int limit = region.limit();
+        for (int lineStart = 0; lineStart < limit; ) {
+            int lineEnd;
+            if (region.get(lineStart) == LIST_MARKER && !isLineEnd(region, lineStart + 1)) {
+                lineEnd = lineStart + 1;
+                while (!isLineEnd(region, lineEnd))
+                    lineEnd++;
+                section = new Section(listId(region, lineStart + 1, lineEnd));
+                sections.add(section);
+                parser = new PointTextParser(section);
+            } else {
+                lineEnd = parser.parseLine(region, lineStart);
+            }
+            if (lineEnd + 1 < limit && region.get(lineEnd) == '\r' && region.get(lineEnd + 1) == '\n')
+                lineEnd++;
+            lineStart = lineEnd + 1;
+        }
+        return sections;
+    }
+
+    private static boolean isLineEnd(ByteBuffer region, int position) {
+        return position == region.limit() || region.get(position) == '\n' || region.get(position) == '\r';
+    }
+
+    private static String listId(ByteBuffer region, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++)
+            bytes[i - from] = region.get(i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, ParsedPoints> merge(List<List<Section>> regions) throws IOException {
+        Map<String, ParsedPoints> pointsByList = new LinkedHashMap<>();
+        String listId = null;
+        for (List<Section> sections : regions)
+            for (Section section : sections) {
+                if (section.listId != null)
+                    listId = section.listId;
+                if (listId == null && !section.points.isEmpty())
+                    throw new IOException("Malformed point dump, lines before the first list line");
+                if (listId != null)
+                    pointsByList.computeIfAbsent(listId, id -> new ParsedPoints()).addAll(section.points);
+            }
+        return pointsByList;
+    }
+
+    private static <T> List<T> awaitAll(List<Future<T>> futures) throws IOException {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures)
+                results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing points", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Failed to parse points", e.getCause());
+        }
+        return results;
+    }
+
+    private static final class Section implements PointTextHandler {
+
+        private final String listId;
+        private final ParsedPoints points = new ParsedPoints();
+
+        Section(String listId) {
+            this.listId = listId;
+        }
+
+        @Override
+        public void onPoint(int x, int y) {
+            points.addPoint(x, y);
+        }
+
+        @Override
+        public void onMalformedLine() {
+            points.addMalformedLine();
+        }
+
+    }
+
+}
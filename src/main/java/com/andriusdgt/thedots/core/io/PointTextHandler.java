@@ -0,0 +1,9 @@
+package com.andriusdgt.thedots.core.io;
+
+public interface PointTextHandler {
+
+    void onPoint(int x, int y);
+
+    void onMalformedLine();
+
+}
@@ -0,0 +1,176 @@
+package com.andriusdgt.thedots.core.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Parses {@code "x y"} point lines terminated by {@code \n}, {@code \r} or {@code \r\n}, without a {@code String} per
+ * line. Coordinates outside the {@code int} range are clamped to it, so they fail validation instead of the parsing.
+ */
+public final class PointTextParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAX_MAGNITUDE = 1L << 32;
+
+    private static final int LINE_START = 0;
+    private static final int X_SIGN = 1;
+    private static final int X_DIGITS = 2;
+    private static final int Y_START = 3;
+    private static final int Y_SIGN = 4;
+    private static final int Y_DIGITS = 5;
+    private static final int MALFORMED = 6;
+
+    private final PointTextHandler handler;
+
+    private int state = LINE_START;
+    private boolean lineStarted;
+    private boolean skipLineFeed;
+    private boolean negative;
+    private long magnitude;
+    private int x;
+
+    PointTextParser(PointTextHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Parses a single line, any line terminator in it makes the line malformed.
+     */
+    public static void parseLine(CharSequence line, PointTextHandler handler) {
+        PointTextParser parser = new PointTextParser(handler);
+        for (int i = 0; i < line.length(); i++)
+            parser.acceptLineCharacter(line.charAt(i));
+        parser.endLine();
+    }
+
+    public static void parse(Reader reader, PointTextHandler handler) throws IOException {
+        PointTextParser parser = new PointTextParser(handler);
+        char[] buffer = new char[BUFFER_SIZE];
+        for (int count = reader.read(buffer); count != -1; count = reader.read(buffer))
+            for (int i = 0; i < count; i++)
+                parser.accept(buffer[i]);
+        parser.endInput();
+    }
+
+    public static void parse(ReadableByteChannel channel, PointTextHandler handler) throws IOException {
+        PointTextParser parser = new PointTextParser(handler);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            parser.acceptAll(buffer);
+            buffer.clear();
+        }
+        parser.endInput();
+    }
+
+    public static void parse(ByteBuffer buffer, PointTextHandler handler) {
+        PointTextParser parser = new PointTextParser(handler);
+        parser.acceptAll(buffer.duplicate());
+        parser.endInput();
+    }
+
+    int parseLine(ByteBuffer buffer, int from) {
+        int limit = buffer.limit();
+        int i = from;
+        for (; i < limit; i++) {
+            int character = buffer.get(i) & 0xFF;
+            if (character == '\n' || character == '\r')
+                break;
+            acceptLineCharacter(character);
+        }
+        endLine();
+        return i;
+    }
+
+    private void acceptAll(ByteBuffer buffer) {
+        while (buffer.hasRemaining())
+            accept(buffer.get() & 0xFF);
+    }
+
+    private void accept(int character) {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (character == '\n')
+                return;
+        }
+        if (character == '\n' || character == '\r') {
+            skipLineFeed = character == '\r';
+            endLine();
+            return;
+        }
+        lineStarted = true;
+        acceptLineCharacter(character);
+    }
+
+    private void acceptLineCharacter(int character) {
+        boolean digit = character >= '0' && character <= '9';
+        switch (state) {
+            case LINE_START:
+            case Y_START:
+                if (character == '-') {
+                    negative = true;
+                    state = state == LINE_START ? X_SIGN : Y_SIGN;
+                } else if (digit) {
+                    negative = false;
+                    magnitude = character - '0';
+                    state = state == LINE_START ? X_DIGITS : Y_DIGITS;
+                } else {
+                    state = MALFORMED;
+                }
+                break;
+            case X_SIGN:
+            case Y_SIGN:
+                if (digit) {
+                    magnitude = character - '0';
+                    state = state == X_SIGN ? X_DIGITS : Y_DIGITS;
+                } else {
+                    state = MALFORMED;
+                }
+                break;
+            case X_DIGITS:
+                if (digit) {
+                    appendDigit(character);
+                } else if (character == ' ') {
+                    x = coordinate();
+                    state = Y_START;
+                } else {
+                    state = MALFORMED;
+                }
+                break;
+            case Y_DIGITS:
+                if (digit)
+                    appendDigit(character);
+                else
+                    state = MALFORMED;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void appendDigit(int character) {
+        magnitude = Math.min(magnitude * 10 + character - '0', MAX_MAGNITUDE);
+    }
+
+    private int coordinate() {
+        long value = negative ? -magnitude : magnitude;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    private void endLine() {
+        if (state == Y_DIGITS)
+            handler.onPoint(x, coordinate());
+        else
+            handler.onMalformedLine();
+        state = LINE_START;
+        lineStarted = false;
+    }
+
+    private void endInput() {
+        if (lineStarted)
+            endLine();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.andriusdgt.thedots.core.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes points as {@code "x y"} lines separated by {@code \n}, the text {@link PointTextParser} reads. Not
+ * thread-safe.
+ */
+public final class PointTextWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_LINE_LENGTH = 2 * 11 + 2;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[10];
+    private boolean firstPoint = true;
+
+    public PointTextWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public void write(int x, int y) throws IOException {
+        if (buffer.remaining() < MAX_LINE_LENGTH)
+            drain();
+        if (!firstPoint)
+            buffer.put((byte) '\n');
+        firstPoint = false;
+        putInt(x);
+        buffer.put((byte) ' ');
+        putInt(y);
+    }
+
+    public void flush() throws IOException {
+        drain();
+    }
+
+    private void putInt(int value) {
+        long magnitude = value;
+        if (magnitude < 0) {
+            buffer.put((byte) '-');
+            magnitude = -magnitude;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + magnitude % 10);
+            magnitude /= 10;
+        } while (magnitude != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+}
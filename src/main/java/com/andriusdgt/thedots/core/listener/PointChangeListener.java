@@ -0,0 +1,52 @@
+package com.andriusdgt.thedots.core.listener;
+
+import com.andriusdgt.thedots.core.model.Point;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Notified by the services after points of a list are persisted or deleted.
+ */
+public interface PointChangeListener {
+
+    static PointChangeListener noOp() {
+        return new PointChangeListener() {
+        };
+    }
+
+    /**
+     * Returns a listener notifying the given listeners in order.
+     */
+    static PointChangeListener of(PointChangeListener... listeners) {
+        List<PointChangeListener> listenerList = List.of(listeners);
+        return new PointChangeListener() {
+
+            @Override
+            public void pointsAdded(String listId, Collection<Point> points) {
+                listenerList.forEach(listener -> listener.pointsAdded(listId, points));
+            }
+
+            @Override
+            public void pointRemoved(Point point) {
+                listenerList.forEach(listener -> listener.pointRemoved(point));
+            }
+
+            @Override
+            public void listCleared(String listId) {
+                listenerList.forEach(listener -> listener.listCleared(listId));
+            }
+
+        };
+    }
+
+    default void pointsAdded(String listId, Collection<Point> points) {
+    }
+
+    default void pointRemoved(Point point) {
+    }
+
+    default void listCleared(String listId) {
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.andriusdgt.thedots.core.metrics;
+
+/**
+ * Counted events of the services.
+ */
+public enum Counter {
+
+    IMPORTED_POINTS,
+    MALFORMED_LINES,
+    INVALID_POINTS,
+    DUPLICATE_POINTS,
+    POINTS_OVER_LIMIT,
+    FAILED_IMPORTS,
+    /**
+     * Point pairs a square detection would pair up without pruning, an upper bound of the pairs it actually examines.
+     */
+    SQUARE_CANDIDATE_PAIR_BOUND,
+    SQUARES_FOUND
+
+}
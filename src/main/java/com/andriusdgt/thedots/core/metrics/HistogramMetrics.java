@@ -0,0 +1,139 @@
+package com.andriusdgt.thedots.core.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe in-process {@link Metrics} keeping a log-linear histogram per stage, with percentiles within about 3% of
+ * the recorded durations.
+ */
+public final class HistogramMetrics implements Metrics {
+
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] REPORTED_PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final Map<Stage, Histogram> histograms = new EnumMap<>(Stage.class);
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+    public HistogramMetrics() {
+        for (Stage stage : Stage.values())
+            histograms.put(stage, new Histogram());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordTime(Stage stage, long nanos) {
+        histograms.get(stage).record(Math.max(0, nanos));
+    }
+
+    @Override
+    public void increment(Counter counter, long count) {
+        counters.addAndGet(counter.ordinal(), count);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    public long getCount(Stage stage) {
+        return histograms.get(stage).count.get();
+    }
+
+    public long getTotalNanos(Stage stage) {
+        return histograms.get(stage).totalNanos.get();
+    }
+
+    public long getMaxNanos(Stage stage) {
+        return histograms.get(stage).maxNanos.get();
+    }
+
+    /**
+     * Returns the duration the given percentage of the stage's recordings did not exceed, or 0 if there are none.
+     */
+    public long getPercentileNanos(Stage stage, double percentile) {
+        return histograms.get(stage).percentile(percentile);
+    }
+
+    public double getImportedPointsPerSecond() {
+        long importNanos = getTotalNanos(Stage.IMPORT);
+        return importNanos == 0 ? 0 : getCount(Counter.IMPORTED_POINTS) * 1e9 / importNanos;
+    }
+
+    /**
+     * Returns a line per recorded stage and per counter.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            if (getCount(stage) == 0)
+                continue;
+            report.append(stage).append(" count=").append(getCount(stage))
+                .append(" total=").append(getTotalNanos(stage)).append("ns");
+            for (int i = 0; i < REPORTED_PERCENTILES.length; i++)
+                report.append(' ').append(REPORTED_PERCENTILE_NAMES[i])
+                    .append('=').append(getPercentileNanos(stage, REPORTED_PERCENTILES[i])).append("ns");
+            report.append(" max=").append(getMaxNanos(stage)).append("ns\n");
+        }
+        for (Counter counter : Counter.values())
+            report.append(counter).append(' ').append(getCount(counter)).append('\n');
+        report.append("IMPORTED_POINTS_PER_SECOND ").append((long) getImportedPointsPerSecond()).append('\n');
+        return report.toString();
+    }
+
+    private static final class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int EXACT_VALUES = SUB_BUCKETS << 1;
+        private static final int BUCKETS = EXACT_VALUES + (64 - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        long percentile(double percentile) {
+            long recorded = count.get();
+            if (recorded == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank)
+                    return Math.min(highestValueOf(bucket), maxNanos.get());
+            }
+            return maxNanos.get();
+        }
+
+        private static int bucketOf(long value) {
+            if (value < EXACT_VALUES)
+                return (int) value;
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+
+        private static long highestValueOf(int bucket) {
+            if (bucket < EXACT_VALUES)
+                return bucket;
+            int shift = (bucket - EXACT_VALUES) / SUB_BUCKETS + 1;
+            long mantissa = (bucket - EXACT_VALUES) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((mantissa + 1) << shift) - 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.andriusdgt.thedots.core.metrics;
+
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.repository.PointRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * {@link PointRepository} decorator recording the latency of every call under the matching {@code REPOSITORY_*} stage.
+ */
+public final class MeteredPointRepository implements PointRepository {
+
+    private final PointRepository pointRepository;
+    private final Metrics metrics;
+
+    public MeteredPointRepository(PointRepository pointRepository, Metrics metrics) {
+        this.pointRepository = pointRepository;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void save(Point point) {
+        run(Stage.REPOSITORY_SAVE, () -> pointRepository.save(point));
+    }
+
+    @Override
+    public void saveAll(Iterable<Point> points) {
+        run(Stage.REPOSITORY_SAVE, () -> pointRepository.saveAll(points));
+    }
+
+    @Override
+    public List<Point> findByListId(String listId) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findByListId(listId));
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAscYAsc(String listId) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findByListIdOrderByXAscYAsc(listId));
+    }
+
+    @Override
+    public List<Point> findByListId(String listId, int pageIndex, int pageSize) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findByListId(listId, pageIndex, pageSize));
+    }
+
+    @Override
+    public List<Point> findByListIdIn(Collection<String> listIds) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findByListIdIn(listIds));
+    }
+
+    @Override
+    public List<Point> findByListIdWithin(String listId, int x1, int y1, int x2, int y2) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findByListIdWithin(listId, x1, y1, x2, y2));
+    }
+
+    @Override
+    public LongStream findKeysByListId(String listId) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findKeysByListId(listId));
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAndY(String listId, int pageIndex, int pageSize, String sortDirection) {
+        return call(
+            Stage.REPOSITORY_FIND,
+            () -> pointRepository.findByListIdOrderByXAndY(listId, pageIndex, pageSize, sortDirection)
+        );
+    }
+
+    @Override
+    public Optional<Point> findById(String id) {
+        return call(Stage.REPOSITORY_FIND, () -> pointRepository.findById(id));
+    }
+
+    @Override
+    public boolean exists(Point point) {
+        return call(Stage.REPOSITORY_EXISTS, () -> pointRepository.exists(point));
+    }
+
+    @Override
+    public long countByListId(String listId) {
+        return call(Stage.REPOSITORY_COUNT, () -> pointRepository.countByListId(listId));
+    }
+
+    @Override
+    public void deleteById(String id) {
+        run(Stage.REPOSITORY_DELETE, () -> pointRepository.deleteById(id));
+    }
+
+    @Override
+    public void deleteByListId(String listId) {
+        run(Stage.REPOSITORY_DELETE, () -> pointRepository.deleteByListId(listId));
+    }
+
+    private void run(Stage stage, Runnable repositoryCall) {
+        long startedAt = System.nanoTime();
+        try {
+            repositoryCall.run();
+        } finally {
+            metrics.recordTime(stage, System.nanoTime() - startedAt);
+        }
+    }
+
+    private <T> T call(Stage stage, Supplier<T> repositoryCall) {
+        long startedAt = System.nanoTime();
+        try {
+            return repositoryCall.get();
+        } finally {
+            metrics.recordTime(stage, System.nanoTime() - startedAt);
+        }
+    }
+
+}
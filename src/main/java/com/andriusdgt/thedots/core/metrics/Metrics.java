@@ -0,0 +1,24 @@
+package com.andriusdgt.thedots.core.metrics;
+
+/**
+ * Receives stage timings and event counts from the services, which only read the clock when metrics are
+ * {@link #isEnabled() enabled}.
+ */
+public interface Metrics {
+
+    static Metrics noOp() {
+        return new Metrics() {
+        };
+    }
+
+    default boolean isEnabled() {
+        return false;
+    }
+
+    default void recordTime(Stage stage, long nanos) {
+    }
+
+    default void increment(Counter counter, long count) {
+    }
+
+}
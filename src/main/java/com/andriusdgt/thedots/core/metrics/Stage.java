@@ -0,0 +1,21 @@
+package com.andriusdgt.thedots.core.metrics;
+
+/**
+ * Timed stages of the services and repository calls.
+ */
+public enum Stage {
+
+    POINT_CREATION,
+    IMPORT,
+    IMPORT_PARSING,
+    IMPORT_VALIDATION,
+    IMPORT_DEDUPLICATION,
+    IMPORT_SAVING,
+    SQUARE_DETECTION,
+    REPOSITORY_SAVE,
+    REPOSITORY_FIND,
+    REPOSITORY_EXISTS,
+    REPOSITORY_COUNT,
+    REPOSITORY_DELETE
+
+}
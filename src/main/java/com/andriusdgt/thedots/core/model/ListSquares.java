@@ -0,0 +1,61 @@
+package com.andriusdgt.thedots.core.model;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class ListSquares {
+
+    private final String listId;
+    private final List<Square> squares;
+    private final boolean timedOut;
+
+    public ListSquares(String listId, List<Square> squares) {
+        this(listId, squares, false);
+    }
+
+    private ListSquares(String listId, List<Square> squares, boolean timedOut) {
+        this.listId = listId;
+        this.squares = squares;
+        this.timedOut = timedOut;
+    }
+
+    public static ListSquares timedOut(String listId) {
+        return new ListSquares(listId, Collections.emptyList(), true);
+    }
+
+    public String getListId() {
+        return listId;
+    }
+
+    /**
+     * Returns the squares of the list, or no squares if the detection {@link #isTimedOut() timed out}.
+     */
+    public List<Square> getSquares() {
+        return squares;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ListSquares)) return false;
+
+        ListSquares listSquares = (ListSquares) o;
+
+        if (isTimedOut() != listSquares.isTimedOut()) return false;
+        if (!getListId().equals(listSquares.getListId())) return false;
+        return getSquares().equals(listSquares.getSquares());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getListId().hashCode();
+        result = 31 * result + getSquares().hashCode();
+        result = 31 * result + (isTimedOut() ? 1 : 0);
+        return result;
+    }
+
+}
@@ -27,6 +27,11 @@ public final class Point implements Serializable {
         this.listId = listId;
     }
 
+    public Point(String id, int x, int y, String listId) {
+        this(x, y, listId);
+        this.id = id;
+    }
+
     public String getId() {
         return id;
     }
@@ -1,35 +1,106 @@
 package com.andriusdgt.thedots.core.model;
 
-import com.andriusdgt.thedots.core.factory.SquareFactory;
-
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Objects;
 
 import static com.andriusdgt.thedots.core.model.SquareVertex.*;
 
+/**
+ * Square stored as its bottom left vertex and the vector of its bottom side. An axis-aligned square has
+ * {@code sideY == 0}.
+ */
 public final class Square {
 
-    private Map<SquareVertex, Point> vertices;
+    private int x;
+    private int y;
+    private int sideX;
+    private int sideY;
+    private String listId;
+    private volatile Map<SquareVertex, Point> vertices;
 
     public Square() {
     }
 
+    public Square(int x, int y, int sideX, int sideY, String listId) {
+        this.x = x;
+        this.y = y;
+        this.sideX = sideX;
+        this.sideY = sideY;
+        this.listId = listId;
+    }
+
+    /**
+     * Creates the axis-aligned square lying right of its left side, given by its two vertices in either order.
+     */
     public Square(Point bottomLeftVertex, Point upperLeftVertex) {
-        vertices = new HashMap<>(4);
-        vertices.putAll(Map.of(
-            BOTTOM_LEFT, bottomLeftVertex,
-            UPPER_LEFT, upperLeftVertex
-        ));
-        vertices.putAll(Map.of(
-            UPPER_RIGHT, SquareFactory.newRightPoint(this, UPPER_LEFT),
-            BOTTOM_RIGHT, SquareFactory.newRightPoint(this, BOTTOM_LEFT)
-        ));
+        this(
+            bottomLeftVertex.getX(),
+            Math.min(bottomLeftVertex.getY(), upperLeftVertex.getY()),
+            Math.abs(upperLeftVertex.getY() - bottomLeftVertex.getY()),
+            0,
+            bottomLeftVertex.getListId()
+        );
+    }
+
+    public Square(Point bottomLeftVertex, Point bottomRightVertex, Point upperRightVertex, Point upperLeftVertex) {
+        this(
+            bottomLeftVertex.getX(),
+            bottomLeftVertex.getY(),
+            bottomRightVertex.getX() - bottomLeftVertex.getX(),
+            bottomRightVertex.getY() - bottomLeftVertex.getY(),
+            bottomLeftVertex.getListId()
+        );
+        if (!newVertex(UPPER_RIGHT).equals(upperRightVertex) || !newVertex(UPPER_LEFT).equals(upperLeftVertex))
+            throw new IllegalArgumentException("Vertices do not form a square");
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getSideX() {
+        return sideX;
+    }
+
+    public int getSideY() {
+        return sideY;
+    }
+
+    public String getListId() {
+        return listId;
     }
 
     public Map<SquareVertex, Point> getVertices() {
+        Map<SquareVertex, Point> vertices = this.vertices;
+        if (vertices == null) {
+            Map<SquareVertex, Point> newVertices = new EnumMap<>(SquareVertex.class);
+            for (SquareVertex vertex : SquareVertex.values())
+                newVertices.put(vertex, newVertex(vertex));
+            vertices = Collections.unmodifiableMap(newVertices);
+            this.vertices = vertices;
+        }
         return vertices;
     }
 
+    private Point newVertex(SquareVertex vertex) {
+        switch (vertex) {
+            case BOTTOM_RIGHT:
+                return new Point(x + sideX, y + sideY, listId);
+            case UPPER_RIGHT:
+                return new Point(x + sideX - sideY, y + sideY + sideX, listId);
+            case UPPER_LEFT:
+                return new Point(x - sideY, y + sideX, listId);
+            default:
+                return new Point(x, y, listId);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -37,12 +108,21 @@ public final class Square {
 
         Square square = (Square) o;
 
-        return getVertices().equals(square.getVertices());
+        if (x != square.x) return false;
+        if (y != square.y) return false;
+        if (sideX != square.sideX) return false;
+        if (sideY != square.sideY) return false;
+        return Objects.equals(listId, square.listId);
     }
 
     @Override
     public int hashCode() {
-        return getVertices().hashCode();
+        int result = x;
+        result = 31 * result + y;
+        result = 31 * result + sideX;
+        result = 31 * result + sideY;
+        result = 31 * result + Objects.hashCode(listId);
+        return result;
     }
 
 }
@@ -0,0 +1,46 @@
+package com.andriusdgt.thedots.core.model;
+
+import java.util.List;
+
+public final class SquarePage {
+
+    private final List<Square> squares;
+    private final String nextCursor;
+
+    public SquarePage(List<Square> squares, String nextCursor) {
+        this.squares = squares;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Square> getSquares() {
+        return squares;
+    }
+
+    /**
+     * Returns the cursor of the following page, or {@code null} if this page is the last one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SquarePage)) return false;
+
+        SquarePage squarePage = (SquarePage) o;
+
+        if (!getSquares().equals(squarePage.getSquares())) return false;
+        return getNextCursor() != null
+            ? getNextCursor().equals(squarePage.getNextCursor())
+            : squarePage.getNextCursor() == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getSquares().hashCode();
+        result = 31 * result + (getNextCursor() != null ? getNextCursor().hashCode() : 0);
+        return result;
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.index.PointKeySet;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+/**
+ * {@link PointRepository} decorator caching the coordinates of recently used lists for {@code exists},
+ * {@code countByListId} and {@code findKeysByListId}, up to the given number of points.
+ */
+public final class CachingPointRepository implements PointRepository {
+
+    private final PointRepository pointRepository;
+    private final long cachedPointLimit;
+    private final LinkedHashMap<String, CachedList> lists = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPointCount;
+
+    public CachingPointRepository(PointRepository pointRepository, long cachedPointLimit) {
+        if (cachedPointLimit < 0)
+            throw new IllegalArgumentException("Invalid cached point limit " + cachedPointLimit);
+        this.pointRepository = pointRepository;
+        this.cachedPointLimit = cachedPointLimit;
+    }
+
+    @Override
+    public void save(Point point) {
+        pointRepository.save(point);
+        CachedList cachedList = findCached(point.getListId());
+        if (cachedList != null)
+            cachedList.add(Collections.singletonList(point));
+    }
+
+    @Override
+    public void saveAll(Iterable<Point> points) {
+        pointRepository.saveAll(points);
+        Map<String, List<Point>> pointsByList = new HashMap<>();
+        for (Point point : points)
+            pointsByList.computeIfAbsent(point.getListId(), listId -> new ArrayList<>()).add(point);
+        pointsByList.forEach((listId, listPoints) -> {
+            CachedList cachedList = findCached(listId);
+            if (cachedList != null)
+                cachedList.add(listPoints);
+        });
+    }
+
+    @Override
+    public List<Point> findByListId(String listId) {
+        return pointRepository.findByListId(listId);
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAscYAsc(String listId) {
+        return pointRepository.findByListIdOrderByXAscYAsc(listId);
+    }
+
+    @Override
+    public List<Point> findByListId(String listId, int pageIndex, int pageSize) {
+        return pointRepository.findByListId(listId, pageIndex, pageSize);
+    }
+
+    @Override
+    public List<Point> findByListIdIn(Collection<String> listIds) {
+        return pointRepository.findByListIdIn(listIds);
+    }
+
+    @Override
+    public List<Point> findByListIdWithin(String listId, int x1, int y1, int x2, int y2) {
+        return pointRepository.findByListIdWithin(listId, x1, y1, x2, y2);
+    }
+
+    @Override
+    public LongStream findKeysByListId(String listId) {
+        CachedList cachedList = load(listId);
+        return cachedList == null ? pointRepository.findKeysByListId(listId) : LongStream.of(cachedList.keys());
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAndY(String listId, int pageIndex, int pageSize, String sortDirection) {
+        return pointRepository.findByListIdOrderByXAndY(listId, pageIndex, pageSize, sortDirection);
+    }
+
+    @Override
+    public Optional<Point> findById(String id) {
+        return pointRepository.findById(id);
+    }
+
+    @Override
+    public boolean exists(Point point) {
+        CachedList cachedList = load(point.getListId());
+        return cachedList == null ? pointRepository.exists(point) : cachedList.contains(PointKeys.pack(point));
+    }
+
+    @Override
+    public long countByListId(String listId) {
+        CachedList cachedList = load(listId);
+        return cachedList == null ? pointRepository.countByListId(listId) : cachedList.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Optional<String> listId = PointIds.isValid(id)
+            ? Optional.of(PointIds.listId(id))
+            : pointRepository.findById(id).map(Point::getListId);
+        pointRepository.deleteById(id);
+        listId.ifPresent(this::evict);
+    }
+
+    @Override
+    public void deleteByListId(String listId) {
+        pointRepository.deleteByListId(listId);
+        evict(listId);
+    }
+
+    synchronized long getCachedPointCount() {
+        return cachedPointCount;
+    }
+
+    private synchronized CachedList findCached(String listId) {
+        return lists.get(listId);
+    }
+
+    private synchronized void evict(String listId) {
+        CachedList cachedList = lists.remove(listId);
+        if (cachedList != null)
+            uncache(cachedList);
+    }
+
+    private CachedList load(String listId) {
+        CachedList cachedList;
+        synchronized (this) {
+            cachedList = lists.computeIfAbsent(listId, CachedList::new);
+        }
+        synchronized (cachedList) {
+            if (cachedList.tooLarge || cachedList.keys == null && !cachedList.load())
+                return null;
+            return cachedList;
+        }
+    }
+
+    private synchronized void account(CachedList cachedList, long size) {
+        if (!cachedList.cached)
+            return;
+        cachedPointCount += size - cachedList.accountedSize;
+        cachedList.accountedSize = size;
+        Iterator<CachedList> leastRecentlyUsed = lists.values().iterator();
+        while (cachedPointCount > cachedPointLimit && leastRecentlyUsed.hasNext()) {
+            CachedList evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            uncache(evicted);
+        }
+    }
+
+    private synchronized void uncache(CachedList cachedList) {
+        cachedPointCount -= cachedList.accountedSize;
+        cachedList.accountedSize = 0;
+        cachedList.cached = false;
+    }
+
+    private final class CachedList {
+
+        private final String listId;
+        private PointKeySet keys;
+        private boolean tooLarge;
+        private boolean cached = true;
+        private long accountedSize;
+
+        CachedList(String listId) {
+            this.listId = listId;
+        }
+
+        boolean load() {
+            if (pointRepository.countByListId(listId) > cachedPointLimit) {
+                tooLarge = true;
+                return false;
+            }
+            PointKeySet loadedKeys = new PointKeySet();
+            pointRepository.findKeysByListId(listId).forEach(loadedKeys::add);
+            keys = loadedKeys;
+            account(this, keys.size());
+            return true;
+        }
+
+        synchronized void add(List<Point> points) {
+            if (keys == null)
+                return;
+            for (Point point : points)
+                keys.add(PointKeys.pack(point));
+            account(this, keys.size());
+        }
+
+        synchronized boolean contains(long key) {
+            return keys.contains(key);
+        }
+
+        synchronized int size() {
+            return keys.size();
+        }
+
+        synchronized long[] keys() {
+            return keys.toArray();
+        }
+
+    }
+
+}
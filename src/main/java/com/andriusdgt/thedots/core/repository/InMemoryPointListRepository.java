@@ -0,0 +1,52 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.model.PointList;
+
+import java.util.*;
+
+/**
+ * Thread-safe {@link PointListRepository} keeping lists in insertion order.
+ */
+public final class InMemoryPointListRepository implements PointListRepository {
+
+    private final Map<String, PointList> pointLists = new LinkedHashMap<>();
+    private final Map<String, String> idsByName = new HashMap<>();
+
+    @Override
+    public synchronized void save(PointList pointList) {
+        String id = pointList.getId() != null ? pointList.getId() : UUID.randomUUID().toString();
+        PointList previous = pointLists.put(id, new PointList(id, pointList.getName()));
+        if (previous != null)
+            idsByName.remove(previous.getName(), id);
+        idsByName.put(pointList.getName(), id);
+    }
+
+    @Override
+    public synchronized PointList findByName(String name) {
+        String id = idsByName.get(name);
+        return id == null ? null : pointLists.get(id);
+    }
+
+    @Override
+    public synchronized List<PointList> findAll() {
+        return new ArrayList<>(pointLists.values());
+    }
+
+    @Override
+    public synchronized Optional<PointList> findById(String id) {
+        return Optional.ofNullable(pointLists.get(id));
+    }
+
+    @Override
+    public synchronized void delete(PointList pointList) {
+        deleteById(pointList.getId());
+    }
+
+    @Override
+    public synchronized void deleteById(String id) {
+        PointList removed = pointLists.remove(id);
+        if (removed != null)
+            idsByName.remove(removed.getName(), id);
+    }
+
+}
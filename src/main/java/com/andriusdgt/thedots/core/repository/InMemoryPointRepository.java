@@ -0,0 +1,258 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.index.PointBuckets;
+import com.andriusdgt.thedots.core.index.PointKeySet;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.LongStream;
+
+/**
+ * Thread-safe {@link PointRepository} keeping every list as packed coordinate keys. Saving a point already in its list
+ * does nothing.
+ */
+public final class InMemoryPointRepository implements PointRepository {
+
+    private static final String ASCENDING = "ASC";
+    private static final String DESCENDING = "DESC";
+
+    private final ConcurrentMap<String, ListPoints> lists = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(Point point) {
+        add(point.getListId(), new long[]{PointKeys.pack(point)});
+    }
+
+    @Override
+    public void saveAll(Iterable<Point> points) {
+        Map<String, List<Point>> pointsByList = new HashMap<>();
+        for (Point point : points)
+            pointsByList.computeIfAbsent(point.getListId(), listId -> new ArrayList<>()).add(point);
+        pointsByList.forEach(
+            (listId, listPoints) -> add(listId, listPoints.stream().mapToLong(PointKeys::pack).toArray())
+        );
+    }
+
+    @Override
+    public List<Point> findByListId(String listId) {
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null ? new ArrayList<>() : listPoints.find(0, Integer.MAX_VALUE, false, false);
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAscYAsc(String listId) {
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null ? new ArrayList<>() : listPoints.find(0, Integer.MAX_VALUE, true, false);
+    }
+
+    @Override
+    public List<Point> findByListId(String listId, int pageIndex, int pageSize) {
+        checkPage(pageIndex, pageSize);
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null
+            ? new ArrayList<>()
+            : listPoints.find((long) pageIndex * pageSize, pageSize, false, false);
+    }
+
+    @Override
+    public List<Point> findByListIdWithin(String listId, int x1, int y1, int x2, int y2) {
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null ? new ArrayList<>() : listPoints.findWithin(x1, y1, x2, y2);
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAndY(String listId, int pageIndex, int pageSize, String sortDirection) {
+        checkPage(pageIndex, pageSize);
+        boolean descending = isDescending(sortDirection);
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null
+            ? new ArrayList<>()
+            : listPoints.find((long) pageIndex * pageSize, pageSize, true, descending);
+    }
+
+    @Override
+    public LongStream findKeysByListId(String listId) {
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null ? LongStream.empty() : LongStream.of(listPoints.keys());
+    }
+
+    @Override
+    public Optional<Point> findById(String id) {
+        return PointIds.isValid(id) ? Optional.of(PointIds.point(id)).filter(this::exists) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(Point point) {
+        ListPoints listPoints = lists.get(point.getListId());
+        return listPoints != null && listPoints.contains(PointKeys.pack(point));
+    }
+
+    @Override
+    public long countByListId(String listId) {
+        ListPoints listPoints = lists.get(listId);
+        return listPoints == null ? 0 : listPoints.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        if (!PointIds.isValid(id))
+            return;
+        ListPoints listPoints = lists.get(PointIds.listId(id));
+        if (listPoints != null)
+            listPoints.remove(PointIds.key(id));
+    }
+
+    @Override
+    public void deleteByListId(String listId) {
+        ListPoints listPoints = lists.remove(listId);
+        if (listPoints != null)
+            listPoints.delete();
+    }
+
+    private void add(String listId, long[] keys) {
+        ListPoints listPoints;
+        do
+            listPoints = lists.computeIfAbsent(Objects.requireNonNull(listId), ListPoints::new);
+        while (!listPoints.addAll(keys));
+    }
+
+    private static void checkPage(int pageIndex, int pageSize) {
+        if (pageIndex < 0 || pageSize < 1)
+            throw new IllegalArgumentException("Invalid page " + pageIndex + " of size " + pageSize);
+    }
+
+    private static boolean isDescending(String sortDirection) {
+        if (DESCENDING.equalsIgnoreCase(sortDirection))
+            return true;
+        if (ASCENDING.equalsIgnoreCase(sortDirection))
+            return false;
+        throw new IllegalArgumentException("Unknown sort direction " + sortDirection);
+    }
+
+    private static final class ListPoints {
+
+        private final String listId;
+        private long[] keys = new long[16];
+        private long[] sequences = new long[16];
+        private long[] sortedKeys = new long[16];
+        private long[] sortedSequences = new long[16];
+        private int size;
+        private long nextSequence;
+        private boolean deleted;
+        private PointBuckets buckets;
+
+        ListPoints(String listId) {
+            this.listId = listId;
+        }
+
+        synchronized boolean addAll(long[] newKeys) {
+            if (deleted)
+                return false;
+            PointKeySet batch = new PointKeySet(newKeys.length);
+            long[] added = new long[newKeys.length];
+            int addedCount = 0;
+            for (long key : newKeys)
+                if (!contains(key) && batch.add(key))
+                    added[addedCount++] = key;
+            if (addedCount == 0)
+                return true;
+
+            ensureCapacity(size + addedCount);
+            long firstSequence = nextSequence;
+            for (int i = 0; i < addedCount; i++) {
+                keys[size + i] = added[i];
+                sequences[size + i] = nextSequence++;
+            }
+            long[] addedSorted = Arrays.copyOf(added, addedCount);
+            Arrays.sort(addedSorted);
+            long[] addedSortedSequences = new long[addedCount];
+            for (int i = 0; i < addedCount; i++)
+                addedSortedSequences[Arrays.binarySearch(addedSorted, added[i])] = firstSequence + i;
+            mergeSorted(addedSorted, addedSortedSequences);
+            size += addedCount;
+            if (buckets != null)
+                for (long key : addedSorted)
+                    buckets.add(key);
+            return true;
+        }
+
+        synchronized void remove(long key) {
+            int sortedIndex = Arrays.binarySearch(sortedKeys, 0, size, key);
+            if (sortedIndex < 0)
+                return;
+            int index = Arrays.binarySearch(sequences, 0, size, sortedSequences[sortedIndex]);
+            System.arraycopy(sortedKeys, sortedIndex + 1, sortedKeys, sortedIndex, size - sortedIndex - 1);
+            System.arraycopy(sortedSequences, sortedIndex + 1, sortedSequences, sortedIndex, size - sortedIndex - 1);
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(sequences, index + 1, sequences, index, size - index - 1);
+            size--;
+            if (buckets != null)
+                buckets.remove(key);
+        }
+
+        synchronized void delete() {
+            deleted = true;
+        }
+
+        synchronized boolean contains(long key) {
+            return Arrays.binarySearch(sortedKeys, 0, size, key) >= 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long[] keys() {
+            return Arrays.copyOf(keys, size);
+        }
+
+        synchronized List<Point> find(long offset, int limit, boolean sorted, boolean descending) {
+            long[] source = sorted ? sortedKeys : keys;
+            int from = (int) Math.min(offset, size);
+            int to = (int) Math.min((long) from + limit, size);
+            List<Point> points = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                long key = source[descending ? size - 1 - i : i];
+                points.add(new Point(PointIds.of(listId, key), PointKeys.x(key), PointKeys.y(key), listId));
+            }
+            return points;
+        }
+
+        synchronized List<Point> findWithin(int x1, int y1, int x2, int y2) {
+            if (buckets == null)
+                buckets = PointBuckets.of(Arrays.copyOf(sortedKeys, size));
+            long[] foundKeys = buckets.keysWithin(x1, y1, x2, y2);
+            List<Point> points = new ArrayList<>(foundKeys.length);
+            for (long key : foundKeys)
+                points.add(new Point(PointIds.of(listId, key), PointKeys.x(key), PointKeys.y(key), listId));
+            return points;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= keys.length)
+                return;
+            int newCapacity = Math.max(capacity, keys.length << 1);
+            keys = Arrays.copyOf(keys, newCapacity);
+            sequences = Arrays.copyOf(sequences, newCapacity);
+            sortedKeys = Arrays.copyOf(sortedKeys, newCapacity);
+            sortedSequences = Arrays.copyOf(sortedSequences, newCapacity);
+        }
+
+        private void mergeSorted(long[] addedKeys, long[] addedSequences) {
+            int end = size;
+            for (int j = addedKeys.length - 1; j >= 0; j--) {
+                int position = -Arrays.binarySearch(sortedKeys, 0, end, addedKeys[j]) - 1;
+                System.arraycopy(sortedKeys, position, sortedKeys, position + j + 1, end - position);
+                System.arraycopy(sortedSequences, position, sortedSequences, position + j + 1, end - position);
+                sortedKeys[position + j] = addedKeys[j];
+                sortedSequences[position + j] = addedSequences[j];
+                end = position;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,639 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.index.PointKeySet;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.LongStream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * {@link PointRepository} keeping every list in memory-mapped files of its own directory, thread-safe within a single
+ * process. Saving a point already in its list does nothing, and deleting a point moves the last point of its list into
+ * its place.
+ */
+public final class MappedFilePointRepository implements PointRepository, Closeable {
+
+    private static final int MAGIC = 0x50545331;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int HOLE_OFFSET = 20;
+    private static final int INDEX_CAPACITY_OFFSET = 16;
+    private static final int INDEX_EMPTY_KEY_OFFSET = 20;
+    private static final int POINT_SIZE = 8;
+    private static final int KEY_SIZE = 8;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_INDEX_CAPACITY = 16;
+
+    private final Path directory;
+    private final ConcurrentMap<String, ListFiles> lists = new ConcurrentHashMap<>();
+
+    public MappedFilePointRepository(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(Point point) {
+        listFiles(point.getListId()).append(new long[]{PointKeys.pack(point)});
+    }
+
+    @Override
+    public void saveAll(Iterable<Point> points) {
+        Map<String, PointKeySet> keysByList = new LinkedHashMap<>();
+        Map<String, List<Long>> orderedKeysByList = new LinkedHashMap<>();
+        for (Point point : points) {
+            long key = PointKeys.pack(point);
+            if (keysByList.computeIfAbsent(point.getListId(), listId -> new PointKeySet()).add(key))
+                orderedKeysByList.computeIfAbsent(point.getListId(), listId -> new ArrayList<>()).add(key);
+        }
+        orderedKeysByList.forEach(
+            (listId, keys) -> listFiles(listId).append(keys.stream().mapToLong(Long::longValue).toArray())
+        );
+    }
+
+    @Override
+    public List<Point> findByListId(String listId) {
+        ListFiles listFiles = existingListFiles(listId);
+        return listFiles == null ? new ArrayList<>() : listFiles.find(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAscYAsc(String listId) {
+        ListFiles listFiles = existingListFiles(listId);
+        return listFiles == null ? new ArrayList<>() : listFiles.findSorted(0, Integer.MAX_VALUE, false);
+    }
+
+    @Override
+    public List<Point> findByListId(String listId, int pageIndex, int pageSize) {
+        checkPage(pageIndex, pageSize);
+        ListFiles listFiles = existingListFiles(listId);
+        return listFiles == null ? new ArrayList<>() : listFiles.find((long) pageIndex * pageSize, pageSize);
+    }
+
+    @Override
+    public List<Point> findByListIdOrderByXAndY(String listId, int pageIndex, int pageSize, String sortDirection) {
+        checkPage(pageIndex, pageSize);
+        boolean descending = isDescending(sortDirection);
+        ListFiles listFiles = existingListFiles(listId);
+        return listFiles == null
+            ? new ArrayList<>()
+            : listFiles.findSorted((long) pageIndex * pageSize, pageSize, descending);
+    }
+
+    @Override
+    public LongStream findKeysByListId(String listId) {
+        ListFiles listFiles = existingListFiles(listId);
+        return listFiles == null ? LongStream.empty() : LongStream.of(listFiles.keys());
+    }
+
+    @Override
+    public Optional<Point> findById(String id) {
+        return PointIds.isValid(id) ? Optional.of(PointIds.point(id)).filter(this::exists) : Optional.empty();
+    }
+
+    @Override
+    public boolean exists(Point point) {
+        ListFiles listFiles = existingListFiles(point.getListId());
+        return listFiles != null && listFiles.contains(PointKeys.pack(point));
+    }
+
+    @Override
+    public long countByListId(String listId) {
+        ListFiles listFiles = existingListFiles(listId);
+        return listFiles == null ? 0 : listFiles.count();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        ListFiles listFiles = PointIds.isValid(id) ? existingListFiles(PointIds.listId(id)) : null;
+        if (listFiles != null)
+            listFiles.remove(PointIds.key(id));
+    }
+
+    @Override
+    public void deleteByListId(String listId) {
+        ListFiles listFiles = existingListFiles(listId);
+        if (listFiles != null)
+            listFiles.deleteAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ListFiles listFiles : lists.values())
+            listFiles.close();
+        lists.clear();
+    }
+
+    private ListFiles listFiles(String listId) {
+        return lists.computeIfAbsent(Objects.requireNonNull(listId), id -> new ListFiles(directory, id));
+    }
+
+    private ListFiles existingListFiles(String listId) {
+        return lists.computeIfAbsent(
+            Objects.requireNonNull(listId),
+            id -> Files.exists(ListFiles.segmentPath(directory, id)) ? new ListFiles(directory, id) : null
+        );
+    }
+
+    private static void checkPage(int pageIndex, int pageSize) {
+        if (pageIndex < 0 || pageSize < 1)
+            throw new IllegalArgumentException("Invalid page " + pageIndex + " of size " + pageSize);
+    }
+
+    private static boolean isDescending(String sortDirection) {
+        if ("DESC".equalsIgnoreCase(sortDirection))
+            return true;
+        if ("ASC".equalsIgnoreCase(sortDirection))
+            return false;
+        throw new IllegalArgumentException("Unknown sort direction " + sortDirection);
+    }
+
+    private static final class ListFiles {
+
+        private final String listId;
+        private final Path segmentPath;
+        private final Path indexPath;
+        private final Path sortedPath;
+
+        private FileChannel segment;
+        private long generation;
+        private int count;
+        private MappedByteBuffer segmentView;
+        private long segmentViewGeneration = -1;
+        private MappedByteBuffer index;
+        private int indexCapacity;
+        private MappedByteBuffer sorted;
+
+        ListFiles(Path directory, String listId) {
+            this.listId = listId;
+            segmentPath = segmentPath(directory, listId);
+            indexPath = directory.resolve(fileName(listId) + ".index");
+            sortedPath = directory.resolve(fileName(listId) + ".sorted");
+            try {
+                openSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static Path segmentPath(Path directory, String listId) {
+            return directory.resolve(fileName(listId) + ".points");
+        }
+
+        private static String fileName(String listId) {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(listId.getBytes(StandardCharsets.UTF_8));
+        }
+
+        synchronized void append(long[] keys) {
+            try {
+                ensureIndex();
+                ensureSorted();
+                PointKeySet batch = new PointKeySet(keys.length);
+                ByteBuffer records = ByteBuffer.allocate(keys.length * POINT_SIZE);
+                for (long key : keys)
+                    if (!indexContains(key) && batch.add(key))
+                        records.putInt(PointKeys.x(key)).putInt(PointKeys.y(key));
+                if (batch.isEmpty())
+                    return;
+
+                if (segment == null)
+                    createSegment();
+                records.flip();
+                writeFully(segment, records, HEADER_SIZE + (long) count * POINT_SIZE);
+                segment.force(false);
+                commit(generation + 1, count + batch.size());
+
+                if (count > indexCapacity / 2)
+                    rebuildIndex();
+                else
+                    updateIndex(batch);
+                mergeIntoSorted(batch.toSortedArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void remove(long key) {
+            if (segment == null)
+                return;
+            try {
+                ensureIndex();
+                if (!indexContains(key))
+                    return;
+                ensureSorted();
+
+                int position = positionOf(key);
+                if (position == count - 1) {
+                    commit(generation + 1, count - 1);
+                } else {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE - GENERATION_OFFSET);
+                    header.putLong(generation + 1).putInt(count).putInt(position + 1).flip();
+                    writeFully(segment, header, GENERATION_OFFSET);
+                    segment.force(false);
+                    fillHole(position, generation + 1);
+                }
+
+                indexDelete(key);
+                index.force();
+                index.putLong(GENERATION_OFFSET, generation);
+                index.force();
+                removeFromSorted(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void deleteAll() {
+            try {
+                dropDerivedFiles();
+                closeSegment();
+                Files.deleteIfExists(segmentPath);
+                generation = 0;
+                count = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized boolean contains(long key) {
+            if (segment == null)
+                return false;
+            try {
+                ensureIndex();
+                return indexContains(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long[] keys() {
+            try {
+                MappedByteBuffer view = segmentView();
+                long[] keys = new long[count];
+                for (int i = 0; i < count; i++)
+                    keys[i] = readPoint(view, i);
+                return keys;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized List<Point> find(long offset, int limit) {
+            try {
+                MappedByteBuffer view = segmentView();
+                int from = (int) Math.min(offset, count);
+                int to = (int) Math.min((long) from + limit, count);
+                List<Point> points = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++)
+                    points.add(toPoint(readPoint(view, i)));
+                return points;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized List<Point> findSorted(long offset, int limit, boolean descending) {
+            if (segment == null)
+                return new ArrayList<>();
+            try {
+                ensureSorted();
+                int from = (int) Math.min(offset, count);
+                int to = (int) Math.min((long) from + limit, count);
+                List<Point> points = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++)
+                    points.add(toPoint(sorted.getLong(HEADER_SIZE + (descending ? count - 1 - i : i) * KEY_SIZE)));
+                return points;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void close() throws IOException {
+            index = null;
+            sorted = null;
+            closeSegment();
+        }
+
+        private void openSegment() throws IOException {
+            segmentView = null;
+            segmentViewGeneration = -1;
+            if (!Files.exists(segmentPath)) {
+                segment = null;
+                return;
+            }
+            segment = FileChannel.open(segmentPath, READ, WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(segment, header, 0);
+            checkMagic(header.getInt(0), segmentPath);
+            generation = header.getLong(GENERATION_OFFSET);
+            count = header.getInt(COUNT_OFFSET);
+            int hole = header.getInt(HOLE_OFFSET);
+            if (hole != 0)
+                fillHole(hole - 1, generation);
+        }
+
+        private void fillHole(int position, long newGeneration) throws IOException {
+            ByteBuffer record = ByteBuffer.allocate(POINT_SIZE);
+            readFully(segment, record, HEADER_SIZE + (long) (count - 1) * POINT_SIZE);
+            record.flip();
+            writeFully(segment, record, HEADER_SIZE + (long) position * POINT_SIZE);
+            segment.force(false);
+            commit(newGeneration, count - 1);
+        }
+
+        private int positionOf(long key) throws IOException {
+            MappedByteBuffer view = segmentView();
+            for (int i = 0; i < count; i++)
+                if (readPoint(view, i) == key)
+                    return i;
+            throw new IllegalStateException("Indexed point is missing from " + segmentPath);
+        }
+
+        private void createSegment() throws IOException {
+            segment = FileChannel.open(segmentPath, CREATE, READ, WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            putSegmentHeader(header, generation, 0);
+            header.flip();
+            writeFully(segment, header, 0);
+            segment.force(true);
+        }
+
+        private void commit(long newGeneration, int newCount) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE - GENERATION_OFFSET);
+            header.putLong(newGeneration).putInt(newCount).putInt(0).flip();
+            writeFully(segment, header, GENERATION_OFFSET);
+            segment.force(false);
+            generation = newGeneration;
+            count = newCount;
+        }
+
+        private void closeSegment() throws IOException {
+            segmentView = null;
+            segmentViewGeneration = -1;
+            if (segment != null)
+                segment.close();
+            segment = null;
+        }
+
+        private MappedByteBuffer segmentView() throws IOException {
+            if (segment == null)
+                return null;
+            if (segmentViewGeneration != generation) {
+                segmentView = segment.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) count * POINT_SIZE);
+                segmentViewGeneration = generation;
+            }
+            return segmentView;
+        }
+
+        private long readPoint(MappedByteBuffer view, int position) {
+            int offset = HEADER_SIZE + position * POINT_SIZE;
+            return PointKeys.pack(view.getInt(offset), view.getInt(offset + 4));
+        }
+
+        private Point toPoint(long key) {
+            return new Point(PointIds.of(listId, key), PointKeys.x(key), PointKeys.y(key), listId);
+        }
+
+        private void ensureIndex() throws IOException {
+            if (index != null)
+                return;
+            if (Files.exists(indexPath)) {
+                try (FileChannel channel = FileChannel.open(indexPath, READ, WRITE)) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                    if (isCurrent(mapped) && mapped.capacity() == indexSize(mapped.getInt(INDEX_CAPACITY_OFFSET))) {
+                        index = mapped;
+                        indexCapacity = mapped.getInt(INDEX_CAPACITY_OFFSET);
+                        return;
+                    }
+                }
+            }
+            rebuildIndex();
+        }
+
+        private void rebuildIndex() throws IOException {
+            int capacity = MIN_INDEX_CAPACITY;
+            while (capacity / 2 < count)
+                capacity <<= 1;
+
+            Path buildPath = indexPath.resolveSibling(indexPath.getFileName() + ".build");
+            try (FileChannel channel = FileChannel.open(buildPath, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+                index = channel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(capacity));
+            }
+            indexCapacity = capacity;
+            index.putInt(0, MAGIC);
+            index.putInt(4, VERSION);
+            index.putInt(INDEX_CAPACITY_OFFSET, capacity);
+            index.putInt(INDEX_EMPTY_KEY_OFFSET, 0);
+            for (int slot = 0; slot < capacity; slot++)
+                index.putLong(HEADER_SIZE + slot * KEY_SIZE, EMPTY);
+            for (long key : keys())
+                indexInsert(key);
+            index.putLong(GENERATION_OFFSET, generation);
+            index.force();
+            Files.move(buildPath, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void updateIndex(PointKeySet keys) {
+            keys.forEach(this::indexInsert);
+            index.force();
+            index.putLong(GENERATION_OFFSET, generation);
+            index.force();
+        }
+
+        private boolean indexContains(long key) {
+            if (key == EMPTY)
+                return index.getInt(INDEX_EMPTY_KEY_OFFSET) != 0;
+            for (int slot = slot(key); ; slot = (slot + 1) & (indexCapacity - 1)) {
+                long stored = index.getLong(HEADER_SIZE + slot * KEY_SIZE);
+                if (stored == key)
+                    return true;
+                if (stored == EMPTY)
+                    return false;
+            }
+        }
+
+        private void indexInsert(long key) {
+            if (key == EMPTY) {
+                index.putInt(INDEX_EMPTY_KEY_OFFSET, 1);
+                return;
+            }
+            int slot = slot(key);
+            while (index.getLong(HEADER_SIZE + slot * KEY_SIZE) != EMPTY)
+                slot = (slot + 1) & (indexCapacity - 1);
+            index.putLong(HEADER_SIZE + slot * KEY_SIZE, key);
+        }
+
+        private void indexDelete(long key) {
+            if (key == EMPTY) {
+                index.putInt(INDEX_EMPTY_KEY_OFFSET, 0);
+                return;
+            }
+            int mask = indexCapacity - 1;
+            int hole = slot(key);
+            while (index.getLong(HEADER_SIZE + hole * KEY_SIZE) != key)
+                hole = (hole + 1) & mask;
+            for (int slot = (hole + 1) & mask; ; slot = (slot + 1) & mask) {
+                long stored = index.getLong(HEADER_SIZE + slot * KEY_SIZE);
+                if (stored == EMPTY)
+                    break;
+                if (((slot - slot(stored)) & mask) >= ((slot - hole) & mask)) {
+                    index.putLong(HEADER_SIZE + hole * KEY_SIZE, stored);
+                    hole = slot;
+                }
+            }
+            index.putLong(HEADER_SIZE + hole * KEY_SIZE, EMPTY);
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & (indexCapacity - 1);
+        }
+
+        private void ensureSorted() throws IOException {
+            if (sorted != null && isCurrentSorted(sorted))
+                return;
+            if (Files.exists(sortedPath)) {
+                try (FileChannel channel = FileChannel.open(sortedPath, READ, WRITE)) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                    if (isCurrentSorted(mapped)) {
+                        sorted = mapped;
+                        return;
+                    }
+                }
+            }
+
+            long[] keys = keys();
+            Arrays.sort(keys);
+            Path buildPath = sortedPath.resolveSibling(sortedPath.getFileName() + ".build");
+            try (FileChannel channel = FileChannel.open(buildPath, CREATE, TRUNCATE_EXISTING, WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + keys.length * KEY_SIZE);
+                putSegmentHeader(buffer, generation, keys.length);
+                for (long key : keys)
+                    buffer.putLong(key);
+                buffer.flip();
+                writeFully(channel, buffer, 0);
+                channel.force(true);
+            }
+            Files.move(buildPath, sortedPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(sortedPath, READ, WRITE)) {
+                sorted = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+        }
+
+        private boolean isCurrentSorted(MappedByteBuffer mapped) {
+            return isCurrent(mapped)
+                && mapped.getInt(COUNT_OFFSET) == count
+                && mapped.capacity() >= HEADER_SIZE + (long) count * KEY_SIZE;
+        }
+
+        private void mergeIntoSorted(long[] appendedKeys) throws IOException {
+            long size = HEADER_SIZE + (long) count * KEY_SIZE;
+            if (sorted.capacity() < size) {
+                try (FileChannel channel = FileChannel.open(sortedPath, READ, WRITE)) {
+                    long grownSize = Math.max(size, HEADER_SIZE + 2L * (sorted.capacity() - HEADER_SIZE));
+                    sorted = channel.map(FileChannel.MapMode.READ_WRITE, 0, grownSize);
+                }
+            }
+            int previous = count - appendedKeys.length - 1;
+            int appended = appendedKeys.length - 1;
+            for (int target = count - 1; appended >= 0; target--) {
+                long key = previous >= 0 && sortedKey(previous) > appendedKeys[appended]
+                    ? sortedKey(previous--)
+                    : appendedKeys[appended--];
+                sorted.putLong(HEADER_SIZE + target * KEY_SIZE, key);
+            }
+            commitSorted();
+        }
+
+        private void removeFromSorted(long key) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sortedKey(middle) < key)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            for (int i = low; i < count; i++)
+                sorted.putLong(HEADER_SIZE + i * KEY_SIZE, sortedKey(i + 1));
+            commitSorted();
+        }
+
+        private long sortedKey(int position) {
+            return sorted.getLong(HEADER_SIZE + position * KEY_SIZE);
+        }
+
+        private void commitSorted() {
+            sorted.force();
+            sorted.putInt(COUNT_OFFSET, count);
+            sorted.putLong(GENERATION_OFFSET, generation);
+            sorted.force();
+        }
+
+        private boolean isCurrent(MappedByteBuffer mapped) {
+            return mapped.capacity() >= HEADER_SIZE
+                && mapped.getInt(0) == MAGIC
+                && mapped.getLong(GENERATION_OFFSET) == generation;
+        }
+
+        private static long indexSize(int capacity) {
+            return HEADER_SIZE + (long) capacity * KEY_SIZE;
+        }
+
+        private void dropDerivedFiles() throws IOException {
+            index = null;
+            sorted = null;
+            Files.deleteIfExists(indexPath);
+            Files.deleteIfExists(sortedPath);
+        }
+
+        private static void putSegmentHeader(ByteBuffer buffer, long generation, int count) {
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(generation).putInt(count).putInt(0);
+        }
+
+        private static void checkMagic(int magic, Path path) throws IOException {
+            if (magic != MAGIC)
+                throw new IOException("Not a point segment file: " + path);
+        }
+
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining())
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                    throw new IOException("Unexpected end of file");
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            long start = position - buffer.position();
+            while (buffer.hasRemaining())
+                channel.write(buffer, start + buffer.position());
+        }
+
+    }
+
+}
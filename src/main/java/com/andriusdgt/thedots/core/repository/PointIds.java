@@ -0,0 +1,51 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+
+/**
+ * Point identifiers {@code "x:y:listId"} of the repositories not storing point objects.
+ */
+final class PointIds {
+
+    private PointIds() {
+    }
+
+    static String of(String listId, long key) {
+        return PointKeys.x(key) + ":" + PointKeys.y(key) + ":" + listId;
+    }
+
+    static boolean isValid(String id) {
+        if (id == null)
+            return false;
+        int xEnd = id.indexOf(':');
+        int yEnd = xEnd < 0 ? -1 : id.indexOf(':', xEnd + 1);
+        return yEnd > 0 && isInt(id, 0, xEnd) && isInt(id, xEnd + 1, yEnd);
+    }
+
+    static String listId(String id) {
+        return id.substring(id.indexOf(':', id.indexOf(':') + 1) + 1);
+    }
+
+    static long key(String id) {
+        int xEnd = id.indexOf(':');
+        int yEnd = id.indexOf(':', xEnd + 1);
+        return PointKeys.pack(Integer.parseInt(id, 0, xEnd, 10), Integer.parseInt(id, xEnd + 1, yEnd, 10));
+    }
+
+    static Point point(String id) {
+        long key = key(id);
+        String listId = listId(id);
+        return new Point(of(listId, key), PointKeys.x(key), PointKeys.y(key), listId);
+    }
+
+    private static boolean isInt(String id, int start, int end) {
+        try {
+            Integer.parseInt(id, start, end, 10);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.andriusdgt.thedots.core.repository;
 import com.andriusdgt.thedots.core.model.PointList;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface PointListRepository {
 
@@ -12,6 +13,10 @@ public interface PointListRepository {
 
     List<PointList> findAll();
 
+    default Optional<PointList> findById(String id) {
+        return findAll().stream().filter(pointList -> id.equals(pointList.getId())).findFirst();
+    }
+
     void delete(PointList pointList);
 
     void deleteById(String id);
@@ -1,8 +1,14 @@
 package com.andriusdgt.thedots.core.repository;
 
+import com.andriusdgt.thedots.core.index.PointKeys;
 import com.andriusdgt.thedots.core.model.Point;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
 
 public interface PointRepository {
 
@@ -16,8 +22,38 @@ public interface PointRepository {
 
     List<Point> findByListId(String listId, int pageIndex, int pageSize);
 
+    /**
+     * Finds the points of all the given lists, in no particular order.
+     */
+    default List<Point> findByListIdIn(Collection<String> listIds) {
+        List<Point> points = new ArrayList<>();
+        for (String listId : new LinkedHashSet<>(listIds))
+            points.addAll(findByListId(listId));
+        return points;
+    }
+
+    /**
+     * Finds the coordinates of a list's points packed by {@link PointKeys}, in no particular order.
+     */
+    default LongStream findKeysByListId(String listId) {
+        return findByListId(listId).stream().mapToLong(PointKeys::pack);
+    }
+
+    /**
+     * Finds the points of a list with {@code x1 <= x <= x2} and {@code y1 <= y <= y2}, sorted by X then Y.
+     */
+    default List<Point> findByListIdWithin(String listId, int x1, int y1, int x2, int y2) {
+        List<Point> points = new ArrayList<>();
+        for (Point point : findByListIdOrderByXAscYAsc(listId))
+            if (point.getX() >= x1 && point.getX() <= x2 && point.getY() >= y1 && point.getY() <= y2)
+                points.add(point);
+        return points;
+    }
+
     List<Point> findByListIdOrderByXAndY(String listId, int pageIndex, int pageSize, String sortDirection);
 
+    Optional<Point> findById(String id);
+
     boolean exists(Point point);
 
     long countByListId(String listId);
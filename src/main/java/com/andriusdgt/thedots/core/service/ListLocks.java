@@ -0,0 +1,50 @@
+package com.andriusdgt.thedots.core.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-list locks serializing the check-then-write sequences of a point list. Services writing to the same repository
+ * have to be given the same instance.
+ */
+public final class ListLocks {
+
+    private static final ListLocks SHARED = new ListLocks();
+
+    private final Map<String, ListLock> locks = new ConcurrentHashMap<>();
+
+    static ListLocks shared() {
+        return SHARED;
+    }
+
+    void lock(String listId) {
+        locks.compute(listId, (id, listLock) -> listLock == null ? new ListLock() : listLock.retain()).lock.lock();
+    }
+
+    void unlock(String listId) {
+        locks.get(listId).lock.unlock();
+        locks.computeIfPresent(listId, (id, listLock) -> listLock.release() ? null : listLock);
+    }
+
+    int size() {
+        return locks.size();
+    }
+
+    private static final class ListLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users = 1;
+
+        ListLock retain() {
+            users++;
+            return this;
+        }
+
+        boolean release() {
+            return --users == 0;
+        }
+
+    }
+
+}
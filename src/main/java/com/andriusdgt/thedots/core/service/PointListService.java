@@ -1,105 +1,570 @@
 package com.andriusdgt.thedots.core.service;
 
-import com.andriusdgt.thedots.core.factory.PointFactory;
+import com.andriusdgt.thedots.core.index.PointKeySet;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.io.ParsedPoints;
+import com.andriusdgt.thedots.core.io.PointBinaryParser;
+import com.andriusdgt.thedots.core.io.PointBinaryWriter;
+import com.andriusdgt.thedots.core.io.PointDumpParser;
+import com.andriusdgt.thedots.core.io.PointTextHandler;
+import com.andriusdgt.thedots.core.io.PointTextParser;
+import com.andriusdgt.thedots.core.io.PointTextWriter;
+import com.andriusdgt.thedots.core.listener.PointChangeListener;
+import com.andriusdgt.thedots.core.metrics.Counter;
+import com.andriusdgt.thedots.core.metrics.Metrics;
+import com.andriusdgt.thedots.core.metrics.Stage;
 import com.andriusdgt.thedots.core.model.Point;
 import com.andriusdgt.thedots.core.model.PointList;
 import com.andriusdgt.thedots.core.model.Warning;
 import com.andriusdgt.thedots.core.repository.PointListRepository;
 import com.andriusdgt.thedots.core.repository.PointRepository;
+import com.andriusdgt.thedots.core.validation.PointValidator;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 public final class PointListService {
 
     private final Validator validator;
+    private final PointValidator pointValidator;
     private final PointRepository pointRepository;
     private final PointListRepository pointListRepository;
+    private final PointChangeListener pointChangeListener;
+    private final Metrics metrics;
+    private final ListLocks listLocks;
 
-    private static final String POINTS_LINE_REGEX = "[-]?\\d+ [-]?\\d+";
+    private static final String INCORRECT_FORMAT_WARNING = "Found incorrectly formatted lines, ignoring";
     private static final String LIST_SIZE_EXCEED_WARNING =
         "New points exceeds list size limit of %d, not all points will be imported";
+    private static final int QUEUED_CHUNK_LIMIT = 2;
+    private static final int EXPORT_PAGE_SIZE = 1000;
 
     public PointListService(
         Validator validator,
         PointRepository pointRepository,
         PointListRepository pointListRepository
+    ) {
+        this(validator, pointRepository, pointListRepository, PointChangeListener.noOp());
+    }
+
+    public PointListService(
+        Validator validator,
+        PointRepository pointRepository,
+        PointListRepository pointListRepository,
+        PointChangeListener pointChangeListener
+    ) {
+        this(validator, pointRepository, pointListRepository, pointChangeListener, Metrics.noOp());
+    }
+
+    public PointListService(
+        Validator validator,
+        PointRepository pointRepository,
+        PointListRepository pointListRepository,
+        PointChangeListener pointChangeListener,
+        Metrics metrics
+    ) {
+        this(validator, pointRepository, pointListRepository, pointChangeListener, metrics, ListLocks.shared());
+    }
+
+    /**
+     * Creates a service locking lists with the given locks, which have to be shared with the {@link PointService}
+     * writing to the same repository.
+     */
+    public PointListService(
+        Validator validator,
+        PointRepository pointRepository,
+        PointListRepository pointListRepository,
+        PointChangeListener pointChangeListener,
+        Metrics metrics,
+        ListLocks listLocks
     ) {
         this.validator = validator;
+        this.pointValidator = new PointValidator(validator);
         this.pointRepository = pointRepository;
         this.pointListRepository = pointListRepository;
+        this.pointChangeListener = pointChangeListener;
+        this.metrics = metrics;
+        this.listLocks = listLocks;
     }
 
     public void create(PointList pointList) {
-        if (!validator.validate(pointList).isEmpty())
-            throw new ValidationException(validator.validate(pointList).iterator().next().getMessage());
+        Set<ConstraintViolation<PointList>> violations = validator.validate(pointList);
+        if (!violations.isEmpty())
+            throw new ValidationException(violations.iterator().next().getMessage());
 
         PointList pointListOfSameName = pointListRepository.findByName(pointList.getName());
         if (isFound(pointListOfSameName))
             pointListRepository.delete(pointListOfSameName);
         if (isFound(pointListOfSameName) && !Objects.equals(pointListOfSameName.getId(), pointList.getId()))
-            pointRepository.deleteByListId(pointListOfSameName.getId());
+            deletePoints(pointListOfSameName.getId());
 
         pointListRepository.save(pointList);
     }
 
     public Set<Warning> create(Stream<String> linesStream, String listId, long pointListSizeLimit) {
-        Set<Warning> warnings = new HashSet<>();
-        List<Point> points = linesStream
-            .peek(addFormatWarningIfPresent(warnings))
-            .filter(line -> line.matches(POINTS_LINE_REGEX))
-            .map(line -> PointFactory.from(line, listId))
-            .peek(addValidationWarningIfPresent(warnings))
-            .filter(point -> validator.validate(point).isEmpty())
-            .collect(toList());
+        return importPoints(
+            listId,
+            pointListSizeLimit,
+            handler -> linesStream.forEach(line -> PointTextParser.parseLine(line, handler))
+        );
+    }
+
+    public Set<Warning> create(Reader reader, String listId, long pointListSizeLimit) throws IOException {
+        return importPoints(listId, pointListSizeLimit, handler -> PointTextParser.parse(reader, handler));
+    }
+
+    public Set<Warning> create(
+        ReadableByteChannel channel,
+        String listId,
+        long pointListSizeLimit
+    ) throws IOException {
+        return importPoints(listId, pointListSizeLimit, handler -> PointTextParser.parse(channel, handler));
+    }
+
+    public Set<Warning> create(ByteBuffer buffer, String listId, long pointListSizeLimit) {
+        return importPoints(listId, pointListSizeLimit, handler -> PointTextParser.parse(buffer, handler));
+    }
 
-        int pointCount = points.size();
+    /**
+     * Imports points in the format of {@link #writeBinaryPoints(String, OutputStream)}, validated like the text import.
+     * Malformed input fails with an {@link IOException} and imports nothing.
+     */
+    public Set<Warning> createFromBinary(InputStream inputStream, String listId, long pointListSizeLimit)
+        throws IOException {
+        return createFromBinary(Channels.newChannel(inputStream), listId, pointListSizeLimit);
+    }
 
-        points = points.stream().distinct().collect(toList());
-        List<Point> existingPoints = pointRepository.findByListId(listId);
-        points.removeAll(existingPoints);
-        if (points.size() != pointCount)
-            warnings.add(new Warning("Found duplicates, only distinct ones will be preserved"));
+    public Set<Warning> createFromBinary(ReadableByteChannel channel, String listId, long pointListSizeLimit)
+        throws IOException {
+        return importPoints(listId, pointListSizeLimit, handler -> PointBinaryParser.parse(channel, handler));
+    }
 
-        if (points.size() + existingPoints.size() > pointListSizeLimit) {
-            warnings.add(new Warning(String.format(LIST_SIZE_EXCEED_WARNING, pointListSizeLimit)));
-            points = points.subList(0, (int) pointListSizeLimit - existingPoints.size());
+    /**
+     * Imports a dump of several lists, see {@link PointDumpParser}, on the pool. Returns the warnings of every list in
+     * dump order.
+     */
+    public Map<String, Set<Warning>> createFromDump(Path file, long pointListSizeLimit, ForkJoinPool pool)
+        throws IOException {
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        Map<String, ParsedPoints> pointsByList;
+        try {
+            pointsByList = PointDumpParser.parse(file, pool);
+        } catch (IOException | RuntimeException e) {
+            if (metrics.isEnabled()) {
+                metrics.recordTime(Stage.IMPORT, System.nanoTime() - startedAt);
+                metrics.increment(Counter.FAILED_IMPORTS, 1);
+            }
+            throw e;
         }
+        return pool.submit(() -> pointsByList.entrySet().parallelStream().collect(toMap(
+            Map.Entry::getKey,
+            list -> importPoints(list.getKey(), pointListSizeLimit, list.getValue()::replay),
+            (warnings, otherWarnings) -> warnings,
+            LinkedHashMap::new
+        ))).join();
+    }
 
-        pointRepository.saveAll(points);
-        return warnings;
+    /**
+     * Imports points while saving them in chunks of the given size on the writer, which must not run them on the
+     * importing thread.
+     */
+    public Set<Warning> create(
+        Stream<String> linesStream,
+        String listId,
+        long pointListSizeLimit,
+        int chunkSize,
+        Executor writer
+    ) {
+        listLocks.lock(listId);
+        try {
+            ChunkPipeline pipeline = new ChunkPipeline(listId, writer);
+            ImportedPoints importedPoints = null;
+            boolean imported = false;
+            try {
+                importedPoints = new ImportedPoints(
+                    listId, findExistingKeys(listId), pointListSizeLimit, chunkSize, pipeline::write
+                );
+                linesStream.forEach(importedPoints::parseLine);
+                importedPoints.flush();
+                Set<Warning> warnings = importedPoints.finish();
+                pipeline.finish();
+                imported = true;
+                return warnings;
+            } catch (RuntimeException e) {
+                pipeline.abort();
+                throw e;
+            } finally {
+                if (importedPoints != null)
+                    importedPoints.recordMetrics(imported);
+            }
+        } finally {
+            listLocks.unlock(listId);
+        }
     }
 
     public String getPoints(String listId) {
         return pointRepository
             .findByListId(listId)
             .stream()
-            .map(point -> String.format("%d %d", point.getX(), point.getY()))
+            .map(point -> point.getX() + " " + point.getY())
             .collect(joining("\n"));
     }
 
-    private Consumer<Point> addValidationWarningIfPresent(Set<Warning> warnings) {
-        return point -> {
-            if (!validator.validate(point).isEmpty())
-                warnings.add(new Warning(validator.validate(point).iterator().next().getMessage()));
-        };
+    /**
+     * Writes the text of {@link #getPoints(String)} a page at a time.
+     */
+    public void writePoints(String listId, OutputStream outputStream) throws IOException {
+        writePoints(listId, Channels.newChannel(outputStream));
     }
 
-    private Consumer<String> addFormatWarningIfPresent(Set<Warning> warnings) {
-        return line -> {
-            if (!line.matches(POINTS_LINE_REGEX))
-                warnings.add(new Warning("Found incorrectly formatted lines, ignoring"));
-        };
+    public void writePoints(String listId, WritableByteChannel channel) throws IOException {
+        PointTextWriter writer = new PointTextWriter(channel);
+        List<Point> page;
+        int pageIndex = 0;
+        do {
+            page = pointRepository.findByListId(listId, pageIndex++, EXPORT_PAGE_SIZE);
+            for (Point point : page)
+                writer.write(point.getX(), point.getY());
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        writer.flush();
+    }
+
+    /**
+     * Writes the list in the binary format of {@link PointBinaryWriter}.
+     */
+    public void writeBinaryPoints(String listId, OutputStream outputStream) throws IOException {
+        writeBinaryPoints(listId, Channels.newChannel(outputStream));
+    }
+
+    public void writeBinaryPoints(String listId, WritableByteChannel channel) throws IOException {
+        long[] keys = pointRepository.findKeysByListId(listId).sorted().distinct().toArray();
+        int minY = 0;
+        int maxY = 0;
+        for (int i = 0; i < keys.length; i++) {
+            minY = i == 0 ? PointKeys.y(keys[i]) : Math.min(minY, PointKeys.y(keys[i]));
+            maxY = i == 0 ? PointKeys.y(keys[i]) : Math.max(maxY, PointKeys.y(keys[i]));
+        }
+        int minX = keys.length == 0 ? 0 : PointKeys.x(keys[0]);
+        int maxX = keys.length == 0 ? 0 : PointKeys.x(keys[keys.length - 1]);
+
+        PointBinaryWriter writer = new PointBinaryWriter(channel);
+        String name = pointListRepository.findById(listId).map(PointList::getName).orElse("");
+        writer.writeHeader(name, keys.length, minX, minY, maxX, maxY);
+        for (long key : keys)
+            writer.write(PointKeys.x(key), PointKeys.y(key));
+        writer.flush();
+    }
+
+    private <E extends Exception> Set<Warning> importPoints(
+        String listId,
+        long pointListSizeLimit,
+        PointSource<E> pointSource
+    ) throws E {
+        ImportedPoints importedPoints = new ImportedPoints(listId, pointListSizeLimit);
+        boolean imported = false;
+        try {
+            pointSource.parseInto(importedPoints);
+            importedPoints.save();
+            Set<Warning> warnings = importedPoints.finish();
+            imported = true;
+            return warnings;
+        } finally {
+            importedPoints.recordMetrics(imported);
+        }
+    }
+
+    private void savePoints(String listId, List<Point> points) {
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        pointRepository.saveAll(points);
+        pointChangeListener.pointsAdded(listId, points);
+        if (metrics.isEnabled()) {
+            metrics.recordTime(Stage.IMPORT_SAVING, System.nanoTime() - startedAt);
+            metrics.increment(Counter.IMPORTED_POINTS, points.size());
+        }
+    }
+
+    private void deletePoints(String listId) {
+        listLocks.lock(listId);
+        try {
+            pointRepository.deleteByListId(listId);
+            pointChangeListener.listCleared(listId);
+        } finally {
+            listLocks.unlock(listId);
+        }
+    }
+
+    private PointKeySet findExistingKeys(String listId) {
+        PointKeySet existingKeys = new PointKeySet();
+        pointRepository.findKeysByListId(listId).forEach(existingKeys::add);
+        return existingKeys;
     }
 
     private boolean isFound(PointList pointList) {
         return pointList != null;
     }
 
+    @FunctionalInterface
+    private interface PointSource<E extends Exception> {
+
+        void parseInto(PointTextHandler handler) throws E;
+
+    }
+
+    private final class ImportedPoints implements PointTextHandler {
+
+        private final String listId;
+        private final PointKeySet keys;
+        private final long pointListSizeLimit;
+        private final long remainingCapacity;
+        private final int chunkSize;
+        private final Consumer<List<Point>> chunkWriter;
+        private final Set<Warning> warnings = new HashSet<>();
+        private final boolean timed = metrics.isEnabled();
+        private final long startedAt = timed ? System.nanoTime() : 0;
+        private List<Point> chunk = new ArrayList<>();
+        private long acceptedCount;
+        private long malformedCount;
+        private long invalidCount;
+        private long duplicateCount;
+        private long overLimitCount;
+        private long validationNanos;
+        private long deduplicationNanos;
+        private long writingNanos;
+
+        ImportedPoints(String listId, long pointListSizeLimit) {
+            this(listId, new PointKeySet(), pointListSizeLimit, Long.MAX_VALUE, Integer.MAX_VALUE, null);
+        }
+
+        ImportedPoints(
+            String listId,
+            PointKeySet existingKeys,
+            long pointListSizeLimit,
+            int chunkSize,
+            Consumer<List<Point>> chunkWriter
+        ) {
+            this(
+                listId,
+                existingKeys,
+                pointListSizeLimit,
+                Math.max(0, pointListSizeLimit - existingKeys.size()),
+                chunkSize,
+                chunkWriter
+            );
+        }
+
+        private ImportedPoints(
+            String listId,
+            PointKeySet existingKeys,
+            long pointListSizeLimit,
+            long remainingCapacity,
+            int chunkSize,
+            Consumer<List<Point>> chunkWriter
+        ) {
+            this.listId = listId;
+            this.keys = existingKeys;
+            this.pointListSizeLimit = pointListSizeLimit;
+            this.remainingCapacity = remainingCapacity;
+            this.chunkSize = chunkSize;
+            this.chunkWriter = chunkWriter;
+        }
+
+        @Override
+        public void onPoint(int x, int y) {
+            long validationStartedAt = timed ? System.nanoTime() : 0;
+            Optional<String> violation = pointValidator.findViolation(x, y, listId);
+            long deduplicationStartedAt = timed ? System.nanoTime() : 0;
+            boolean distinct = !violation.isPresent() && keys.add(PointKeys.pack(x, y));
+            if (timed) {
+                validationNanos += deduplicationStartedAt - validationStartedAt;
+                deduplicationNanos += System.nanoTime() - deduplicationStartedAt;
+            }
+            if (violation.isPresent()) {
+                warnings.add(new Warning(violation.get()));
+                invalidCount++;
+            } else if (!distinct)
+                duplicateCount++;
+            else if (acceptedCount == remainingCapacity)
+                overLimitCount++;
+            else
+                accept(new Point(x, y, listId));
+        }
+
+        @Override
+        public void onMalformedLine() {
+            warnings.add(new Warning(INCORRECT_FORMAT_WARNING));
+            malformedCount++;
+        }
+
+        void flush() {
+            write(chunk);
+            chunk = new ArrayList<>();
+        }
+
+        void save() {
+            long savingStartedAt = timed ? System.nanoTime() : 0;
+            listLocks.lock(listId);
+            try {
+                PointKeySet existingKeys = findExistingKeys(listId);
+                long capacity = Math.max(0, pointListSizeLimit - existingKeys.size());
+                List<Point> points = new ArrayList<>();
+                for (Point point : chunk)
+                    if (existingKeys.contains(point.getX(), point.getY()))
+                        duplicateCount++;
+                    else if (points.size() == capacity)
+                        overLimitCount++;
+                    else
+                        points.add(point);
+                acceptedCount = points.size();
+                chunk = new ArrayList<>();
+                savePoints(listId, points);
+            } finally {
+                listLocks.unlock(listId);
+            }
+            if (timed)
+                writingNanos += System.nanoTime() - savingStartedAt;
+        }
+
+        Set<Warning> finish() {
+            if (duplicateCount > 0)
+                warnings.add(new Warning("Found duplicates, only distinct ones will be preserved"));
+            if (overLimitCount > 0)
+                warnings.add(new Warning(String.format(LIST_SIZE_EXCEED_WARNING, pointListSizeLimit)));
+            return warnings;
+        }
+
+        void parseLine(String line) {
+            PointTextParser.parseLine(line, this);
+        }
+
+        void recordMetrics(boolean imported) {
+            if (!timed)
+                return;
+            long importNanos = System.nanoTime() - startedAt;
+            metrics.recordTime(Stage.IMPORT, importNanos);
+            metrics.recordTime(Stage.IMPORT_PARSING, importNanos - validationNanos - deduplicationNanos - writingNanos);
+            metrics.recordTime(Stage.IMPORT_VALIDATION, validationNanos);
+            metrics.recordTime(Stage.IMPORT_DEDUPLICATION, deduplicationNanos);
+            metrics.increment(Counter.MALFORMED_LINES, malformedCount);
+            metrics.increment(Counter.INVALID_POINTS, invalidCount);
+            metrics.increment(Counter.DUPLICATE_POINTS, duplicateCount);
+            metrics.increment(Counter.POINTS_OVER_LIMIT, overLimitCount);
+            if (!imported)
+                metrics.increment(Counter.FAILED_IMPORTS, 1);
+        }
+
+        private void accept(Point point) {
+            chunk.add(point);
+            acceptedCount++;
+            if (chunk.size() == chunkSize) {
+                write(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+
+        private void write(List<Point> points) {
+            long writingStartedAt = timed ? System.nanoTime() : 0;
+            chunkWriter.accept(points);
+            if (timed)
+                writingNanos += System.nanoTime() - writingStartedAt;
+        }
+
+    }
+
+    private final class ChunkPipeline {
+
+        private final List<Point> endOfChunks = new ArrayList<>();
+        private final BlockingQueue<List<Point>> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNK_LIMIT);
+        private final String listId;
+        private final Thread importer = Thread.currentThread();
+        private final CompletableFuture<Void> writing;
+        private volatile boolean failed;
+        private volatile boolean aborted;
+
+        ChunkPipeline(String listId, Executor writer) {
+            this.listId = listId;
+            this.writing = CompletableFuture.runAsync(this::writeChunks, writer);
+            if (writing.isDone())
+                awaitWriting();
+        }
+
+        void write(List<Point> chunk) {
+            if (failed)
+                finish();
+            if (!chunk.isEmpty())
+                put(chunk);
+        }
+
+        void finish() {
+            put(endOfChunks);
+            awaitWriting();
+        }
+
+        void abort() {
+            aborted = true;
+            chunks.clear();
+            chunks.offer(endOfChunks);
+            writing.exceptionally(e -> null).join();
+        }
+
+        private void put(List<Point> chunk) {
+            try {
+                chunks.put(chunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while importing points", e);
+            }
+        }
+
+        private void awaitWriting() {
+            try {
+                writing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        private void writeChunks() {
+            if (Thread.currentThread() == importer)
+                throw new IllegalArgumentException("Chunks have to be written on another thread than the import");
+            RuntimeException failure = null;
+            try {
+                for (List<Point> chunk = chunks.take(); chunk != endOfChunks; chunk = chunks.take()) {
+                    if (failure != null || aborted)
+                        continue;
+                    try {
+                        savePoints(listId, chunk);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                        failed = true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while saving imported points", e);
+            }
+            if (failure != null)
+                throw failure;
+        }
+
+    }
+
 }
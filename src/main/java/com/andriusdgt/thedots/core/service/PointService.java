@@ -2,34 +2,100 @@ package com.andriusdgt.thedots.core.service;
 
 import com.andriusdgt.thedots.core.exception.DuplicatePointException;
 import com.andriusdgt.thedots.core.exception.TooManyPointsException;
+import com.andriusdgt.thedots.core.listener.PointChangeListener;
+import com.andriusdgt.thedots.core.metrics.Metrics;
+import com.andriusdgt.thedots.core.metrics.Stage;
 import com.andriusdgt.thedots.core.model.Point;
 import com.andriusdgt.thedots.core.repository.PointRepository;
+import com.andriusdgt.thedots.core.validation.PointValidator;
 
 import javax.validation.ValidationException;
 import javax.validation.Validator;
+import java.util.Collections;
+import java.util.Optional;
 
 public final class PointService {
 
-    private final Validator validator;
+    private final PointValidator pointValidator;
     private final PointRepository pointRepository;
+    private final PointChangeListener pointChangeListener;
+    private final Metrics metrics;
+    private final ListLocks listLocks;
 
     public PointService(Validator validator, PointRepository pointRepository) {
-        this.validator = validator;
+        this(validator, pointRepository, PointChangeListener.noOp());
+    }
+
+    public PointService(Validator validator, PointRepository pointRepository, PointChangeListener pointChangeListener) {
+        this(validator, pointRepository, pointChangeListener, Metrics.noOp());
+    }
+
+    public PointService(
+        Validator validator,
+        PointRepository pointRepository,
+        PointChangeListener pointChangeListener,
+        Metrics metrics
+    ) {
+        this(validator, pointRepository, pointChangeListener, metrics, ListLocks.shared());
+    }
+
+    /**
+     * Creates a service locking lists with the given locks, which have to be shared with the {@link PointListService}
+     * writing to the same repository.
+     */
+    public PointService(
+        Validator validator,
+        PointRepository pointRepository,
+        PointChangeListener pointChangeListener,
+        Metrics metrics,
+        ListLocks listLocks
+    ) {
+        this.pointValidator = new PointValidator(validator);
         this.pointRepository = pointRepository;
+        this.pointChangeListener = pointChangeListener;
+        this.metrics = metrics;
+        this.listLocks = listLocks;
     }
 
     public void create(Point point, long pointListSizeLimit) {
-        if (!validator.validate(point).isEmpty())
-            throw new ValidationException(validator.validate(point).iterator().next().getMessage());
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            createPoint(point, pointListSizeLimit);
+        } finally {
+            if (metrics.isEnabled())
+                metrics.recordTime(Stage.POINT_CREATION, System.nanoTime() - startedAt);
+        }
+    }
+
+    public void delete(Point point) {
+        listLocks.lock(point.getListId());
+        try {
+            pointRepository.deleteById(point.getId());
+            pointChangeListener.pointRemoved(point);
+        } finally {
+            listLocks.unlock(point.getListId());
+        }
+    }
+
+    private void createPoint(Point point, long pointListSizeLimit) {
+        Optional<String> violation = pointValidator.findViolation(point);
+        if (violation.isPresent())
+            throw new ValidationException(violation.get());
 
-        if (pointRepository.exists(point))
-            throw new DuplicatePointException();
+        listLocks.lock(point.getListId());
+        try {
+            if (pointRepository.exists(point))
+                throw new DuplicatePointException();
 
-        long pointCount = pointRepository.countByListId(point.getListId());
-        if (pointCount + 1 > pointListSizeLimit)
-            throw new TooManyPointsException(pointCount);
+            long pointCount = pointRepository.countByListId(point.getListId());
+            if (pointCount + 1 > pointListSizeLimit)
+                throw new TooManyPointsException(pointCount);
 
-        pointRepository.save(point);
+            pointRepository.save(point);
+            pointChangeListener.pointsAdded(point.getListId(), Collections.singletonList(point));
+        } finally {
+            listLocks.unlock(point.getListId());
+        }
     }
 
 }
@@ -0,0 +1,232 @@
+package com.andriusdgt.thedots.core.service;
+
+import com.andriusdgt.thedots.core.model.ListSquares;
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.repository.PointRepository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterator.NONNULL;
+
+/**
+ * Finds the squares of many lists at once, reading the points of a batch of lists at a time and detecting every list as
+ * a task of its own on the executor.
+ */
+public final class SquareBatchService {
+
+    private static final int DEFAULT_FETCH_SIZE = 100;
+
+    private final PointRepository pointRepository;
+    private final SquareService squareService;
+    private final Executor executor;
+    private final int concurrencyLimit;
+    private final Duration listTimeout;
+    private final int fetchSize;
+
+    public SquareBatchService(
+        PointRepository pointRepository,
+        SquareService squareService,
+        Executor executor,
+        int concurrencyLimit,
+        Duration listTimeout
+    ) {
+        this(pointRepository, squareService, executor, concurrencyLimit, listTimeout, DEFAULT_FETCH_SIZE);
+    }
+
+    public SquareBatchService(
+        PointRepository pointRepository,
+        SquareService squareService,
+        Executor executor,
+        int concurrencyLimit,
+        Duration listTimeout,
+        int fetchSize
+    ) {
+        if (concurrencyLimit < 1 || fetchSize < 1)
+            throw new IllegalArgumentException(
+                "Invalid concurrency limit " + concurrencyLimit + " or fetch size " + fetchSize
+            );
+        this.pointRepository = pointRepository;
+        this.squareService = squareService;
+        this.executor = executor;
+        this.concurrencyLimit = concurrencyLimit;
+        this.listTimeout = listTimeout;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Streams the squares of every distinct given list in the order the detections finish. A list detected for longer
+     * than the list timeout is reported {@link ListSquares#isTimedOut() timed out}, its cancelled task keeps its
+     * concurrency slot until it ends. A list the executor rejects is retried once a detection in flight finishes, and
+     * the rejection is thrown when none is. Closing the stream cancels the detections in flight.
+     */
+    public Stream<ListSquares> find(Collection<String> listIds) {
+        BatchResults results = new BatchResults(new LinkedHashSet<>(listIds).iterator());
+        return StreamSupport.stream(results, false).onClose(results::cancel);
+    }
+
+    private final class BatchResults extends Spliterators.AbstractSpliterator<ListSquares> {
+
+        private final Iterator<String> listIds;
+        private final Deque<Map.Entry<String, List<Point>>> fetchedLists = new ArrayDeque<>();
+        private final CompletionService<ListSquares> completions = new ExecutorCompletionService<>(executor);
+        private final Map<Future<ListSquares>, PendingList> pendingLists = new LinkedHashMap<>();
+        private final Semaphore slots = new Semaphore(concurrencyLimit);
+
+        BatchResults(Iterator<String> listIds) {
+            super(Long.MAX_VALUE, NONNULL);
+            this.listIds = listIds;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ListSquares> action) {
+            try {
+                submitUpToLimit();
+                if (pendingLists.isEmpty())
+                    return false;
+                action.accept(next());
+                return true;
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while finding squares", e);
+            }
+        }
+
+        void cancel() {
+            pendingLists.forEach(this::cancel);
+            pendingLists.clear();
+        }
+
+        private void submitUpToLimit() throws InterruptedException {
+            while (true) {
+                if (fetchedLists.isEmpty() && !fetch())
+                    return;
+                if (pendingLists.isEmpty())
+                    slots.acquire();
+                else if (!slots.tryAcquire())
+                    return;
+                Map.Entry<String, List<Point>> list = fetchedLists.poll();
+                String listId = list.getKey();
+                List<Point> points = list.getValue();
+                PendingList pendingList = new PendingList(listId);
+                Future<ListSquares> future;
+                try {
+                    future = completions.submit(() -> {
+                        if (!pendingList.start())
+                            return null;
+                        try {
+                            return new ListSquares(listId, squareService.find(listId, points));
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    fetchedLists.push(list);
+                    if (pendingLists.isEmpty())
+                        throw e;
+                    return;
+                }
+                pendingLists.put(future, pendingList);
+            }
+        }
+
+        private boolean fetch() {
+            Map<String, List<Point>> pointsByList = new LinkedHashMap<>();
+            while (pointsByList.size() < fetchSize && listIds.hasNext())
+                pointsByList.put(listIds.next(), new ArrayList<>());
+            if (pointsByList.isEmpty())
+                return false;
+            for (Point point : pointRepository.findByListIdIn(pointsByList.keySet())) {
+                List<Point> points = pointsByList.get(point.getListId());
+                if (points != null)
+                    points.add(point);
+            }
+            fetchedLists.addAll(pointsByList.entrySet());
+            return true;
+        }
+
+        private ListSquares next() throws InterruptedException {
+            while (true) {
+                Future<ListSquares> finished = completions.poll();
+                if (finished == null) {
+                    Map.Entry<Future<ListSquares>, PendingList> earliest = earliestStarted();
+                    long remainingNanos = earliest == null
+                        ? listTimeout.toNanos()
+                        : earliest.getValue().startedAt + listTimeout.toNanos() - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        cancel(earliest.getKey(), earliest.getValue());
+                        pendingLists.remove(earliest.getKey());
+                        return ListSquares.timedOut(earliest.getValue().listId);
+                    }
+                    finished = completions.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                }
+                if (finished != null && pendingLists.remove(finished) != null)
+                    return result(finished);
+            }
+        }
+
+        private Map.Entry<Future<ListSquares>, PendingList> earliestStarted() {
+            Map.Entry<Future<ListSquares>, PendingList> earliest = null;
+            for (Map.Entry<Future<ListSquares>, PendingList> pending : pendingLists.entrySet())
+                if (pending.getValue().isStarted()
+                    && (earliest == null || pending.getValue().startedAt - earliest.getValue().startedAt < 0))
+                    earliest = pending;
+            return earliest;
+        }
+
+        private void cancel(Future<ListSquares> future, PendingList pendingList) {
+            future.cancel(true);
+            if (pendingList.abandon())
+                slots.release();
+        }
+
+        private ListSquares result(Future<ListSquares> finished) throws InterruptedException {
+            try {
+                return finished.get();
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new IllegalStateException("Failed to find squares", e.getCause());
+            }
+        }
+
+    }
+
+    private static final class PendingList {
+
+        private final String listId;
+        private long startedAt;
+        private boolean started;
+        private boolean abandoned;
+
+        PendingList(String listId) {
+            this.listId = listId;
+        }
+
+        synchronized boolean start() {
+            if (abandoned)
+                return false;
+            startedAt = System.nanoTime();
+            started = true;
+            return true;
+        }
+
+        synchronized boolean isStarted() {
+            return started;
+        }
+
+        synchronized boolean abandon() {
+            abandoned = true;
+            return !started;
+        }
+
+    }
+
+}
@@ -1,66 +1,314 @@
 package com.andriusdgt.thedots.core.service;
 
-import com.andriusdgt.thedots.core.factory.SquareFactory;
+import com.andriusdgt.thedots.core.cache.SquareResultCache;
+import com.andriusdgt.thedots.core.detection.*;
+import com.andriusdgt.thedots.core.index.PointIndex;
+import com.andriusdgt.thedots.core.index.PointKeySet;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.index.SquareIndexRegistry;
+import com.andriusdgt.thedots.core.metrics.Counter;
+import com.andriusdgt.thedots.core.metrics.Metrics;
+import com.andriusdgt.thedots.core.metrics.Stage;
 import com.andriusdgt.thedots.core.model.Point;
 import com.andriusdgt.thedots.core.model.Square;
+import com.andriusdgt.thedots.core.model.SquarePage;
 import com.andriusdgt.thedots.core.repository.PointRepository;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static com.andriusdgt.thedots.core.model.SquareVertex.BOTTOM_RIGHT;
-import static com.andriusdgt.thedots.core.model.SquareVertex.UPPER_RIGHT;
-import static java.util.stream.Collectors.*;
-import static org.paukov.combinatorics.CombinatoricsFactory.createSimpleCombinationGenerator;
-import static org.paukov.combinatorics.CombinatoricsFactory.range;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
 
 public final class SquareService {
 
+    private static final int STREAM_PAGE_SIZE = 1024;
+
     private final PointRepository pointRepository;
+    private final Optional<SquareIndexRegistry> squareIndexRegistry;
+    private final Optional<SquareResultCache> squareResultCache;
+    private final Metrics metrics;
 
     public SquareService(PointRepository pointRepository) {
+        this(pointRepository, Metrics.noOp());
+    }
+
+    /**
+     * Creates a service recording every detection from scratch to the given metrics.
+     */
+    public SquareService(PointRepository pointRepository, Metrics metrics) {
+        this(pointRepository, Optional.empty(), Optional.empty(), metrics);
+    }
+
+    /**
+     * Creates a service answering {@link #find(String)} from the indexes of the registry, which has to listen to point
+     * writes.
+     */
+    public SquareService(PointRepository pointRepository, SquareIndexRegistry squareIndexRegistry) {
+        this(pointRepository, Optional.of(squareIndexRegistry), Optional.empty(), Metrics.noOp());
+    }
+
+    /**
+     * Creates a service answering {@link #find(String)} and {@link #find(String, ForkJoinPool)} from the cache, which
+     * has to listen to point writes.
+     */
+    public SquareService(PointRepository pointRepository, SquareResultCache squareResultCache) {
+        this(pointRepository, Optional.empty(), Optional.of(squareResultCache), Metrics.noOp());
+    }
+
+    public SquareService(
+        PointRepository pointRepository,
+        SquareIndexRegistry squareIndexRegistry,
+        SquareResultCache squareResultCache
+    ) {
+        this(pointRepository, squareIndexRegistry, squareResultCache, Metrics.noOp());
+    }
+
+    public SquareService(
+        PointRepository pointRepository,
+        SquareIndexRegistry squareIndexRegistry,
+        SquareResultCache squareResultCache,
+        Metrics metrics
+    ) {
+        this(pointRepository, Optional.of(squareIndexRegistry), Optional.of(squareResultCache), metrics);
+    }
+
+    private SquareService(
+        PointRepository pointRepository,
+        Optional<SquareIndexRegistry> squareIndexRegistry,
+        Optional<SquareResultCache> squareResultCache,
+        Metrics metrics
+    ) {
         this.pointRepository = pointRepository;
+        this.squareIndexRegistry = squareIndexRegistry;
+        this.squareResultCache = squareResultCache;
+        this.metrics = metrics;
     }
 
+    /**
+     * Returns the squares of the list. This and the other methods returning squares return unmodifiable lists.
+     */
     public List<Square> find(String listId) {
-        Map<Integer, List<Point>> groupedXPoints = Collections.unmodifiableMap(
-            pointRepository
-                .findByListIdOrderByXAscYAsc(listId)
-                .stream()
-                .collect(groupingBy(Point::getX, toUnmodifiableList()))
+        return squareResultCache
+            .map(cache -> cache.get(listId, this::detect))
+            .orElseGet(() -> detect(listId));
+    }
+
+    /**
+     * Finds the squares of {@link #find(String)}, splitting the detection between the threads of the pool.
+     */
+    public List<Square> find(String listId, ForkJoinPool pool) {
+        return squareResultCache
+            .map(cache -> cache.get(listId, id -> detect(id, pool)))
+            .orElseGet(() -> detect(listId, pool));
+    }
+
+    /**
+     * Finds the squares {@link #find(String)} would find among the given points, in any order, without reading the
+     * repository.
+     */
+    public List<Square> find(String listId, Collection<Point> points) {
+        PointIndex pointIndex = PointIndex.of(points);
+
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        List<Square> squares = SquareFinder.find(pointIndex, listId);
+        recordDetection(pointIndex, false, startedAt, squares.size());
+        return Collections.unmodifiableList(squares);
+    }
+
+    /**
+     * Finds the squares of {@link #find(String)} lying within the box from {@code (x1, y1)} to {@code (x2, y2)}, edges
+     * included.
+     */
+    public List<Square> findWithin(String listId, int x1, int y1, int x2, int y2) {
+        return find(listId, pointRepository.findByListIdWithin(listId, x1, y1, x2, y2));
+    }
+
+    public List<Square> findInAnyOrientation(String listId) {
+        PointIndex pointIndex = PointIndex.of(pointRepository.findByListIdOrderByXAscYAsc(listId));
+
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        List<Square> squares = SquareFinder.findInAnyOrientation(pointIndex, listId);
+        recordDetection(pointIndex, true, startedAt, squares.size());
+        return Collections.unmodifiableList(squares);
+    }
+
+    /**
+     * Finds the squares with sides parallel to the axes adding the point to its list would complete, without adding it.
+     */
+    public List<Square> findCompletedBy(Point point) {
+        return Collections.unmodifiableList(squareIndexRegistry
+            .map(registry -> registry.get(point.getListId()).findCompletedBy(point.getX(), point.getY()))
+            .orElseGet(() -> findCompletedInRepository(point)));
+    }
+
+    public List<Square> findInAnyOrientationCompletedBy(Point point) {
+        long[] keys = pointRepository.findKeysByListId(point.getListId()).toArray();
+        return Collections.unmodifiableList(SquareFinder.findInAnyOrientationCompletedBy(
+            Arrays.stream(keys),
+            PointKeySet.of(keys)::contains,
+            point.getX(),
+            point.getY(),
+            point.getListId()
+        ));
+    }
+
+    /**
+     * Returns a page of the squares of {@link #find(String)} after the cursor, or from the first square when it is
+     * {@code null}.
+     */
+    public SquarePage find(String listId, String cursor, int pageSize) {
+        return findPage(listId, AxisAlignedSquareDetector::detectFromBottom, cursor, pageSize);
+    }
+
+    public SquarePage findInAnyOrientation(String listId, String cursor, int pageSize) {
+        return findPage(listId, RotatedSquareDetector::detectFromBottom, cursor, pageSize);
+    }
+
+    /**
+     * Streams the squares of {@link #find(String)}, detecting them a page at a time.
+     */
+    public Stream<Square> stream(String listId) {
+        return stream(listId, AxisAlignedSquareDetector::detectFromBottom);
+    }
+
+    public Stream<Square> streamInAnyOrientation(String listId) {
+        return stream(listId, RotatedSquareDetector::detectFromBottom);
+    }
+
+    public long count(String listId) {
+        return squareIndexRegistry
+            .map(registry -> (long) registry.get(listId).size())
+            .orElseGet(() -> countFromScratch(listId));
+    }
+
+    public long countInAnyOrientation(String listId) {
+        PointIndex pointIndex = PointIndex.of(pointRepository.findByListIdOrderByXAscYAsc(listId));
+
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        long count = SquareFinder.countInAnyOrientation(pointIndex);
+        recordDetection(pointIndex, true, startedAt, count);
+        return count;
+    }
+
+    private List<Square> findCompletedInRepository(Point point) {
+        long[] keys = pointRepository.findKeysByListId(point.getListId()).toArray();
+        PointIndex column = PointIndex.of(
+            Arrays.stream(keys).filter(key -> PointKeys.x(key) == point.getX()).toArray()
+        );
+        return SquareFinder.findCompletedBy(
+            column, PointKeySet.of(keys)::contains, point.getX(), point.getY(), point.getListId()
+        );
+    }
+
+    private long countFromScratch(String listId) {
+        PointIndex pointIndex = PointIndex.of(pointRepository.findByListIdOrderByXAscYAsc(listId));
+
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        long count = SquareFinder.count(pointIndex);
+        recordDetection(pointIndex, false, startedAt, count);
+        return count;
+    }
+
+    private SquarePage findPage(String listId, BottomSquareDetector detector, String cursor, int pageSize) {
+        PointIndex pointIndex = PointIndex.of(pointRepository.findByListIdOrderByXAscYAsc(listId));
+
+        List<Square> squares = new ArrayList<>();
+        SquareCursor nextCursor = SquarePager.detect(
+            pointIndex,
+            detector,
+            cursor == null ? null : SquareCursor.parse(cursor),
+            pageSize,
+            (x, y, sideX, sideY) -> squares.add(new Square(x, y, sideX, sideY, listId))
+        );
+        return new SquarePage(squares, nextCursor == null ? null : nextCursor.toString());
+    }
+
+    private Stream<Square> stream(String listId, BottomSquareDetector detector) {
+        return StreamSupport.stream(new LazySquares(listId, detector), false);
+    }
+
+    private List<Square> detect(String listId) {
+        return squareIndexRegistry
+            .map(registry -> Collections.unmodifiableList(registry.get(listId).getSquares()))
+            .orElseGet(() -> find(listId, pointRepository.findByListIdOrderByXAscYAsc(listId)));
+    }
+
+    private List<Square> detect(String listId, ForkJoinPool pool) {
+        PointIndex pointIndex = PointIndex.of(pointRepository.findByListIdOrderByXAscYAsc(listId));
+
+        long startedAt = metrics.isEnabled() ? System.nanoTime() : 0;
+        List<Square> squares = new ArrayList<>();
+        ParallelSquareDetector.detect(
+            pointIndex,
+            pool,
+            (x, y, sideX, sideY) -> squares.add(new Square(x, y, sideX, sideY, listId))
         );
+        recordDetection(pointIndex, false, startedAt, squares.size());
+        return Collections.unmodifiableList(squares);
+    }
 
-        return groupedXPoints
-            .values()
-            .stream()
-            .map(toSquares(groupedXPoints))
-            .flatMap(List::stream)
-            .collect(toList());
-    }
-
-    private Function<List<Point>, List<Square>> toSquares(Map<Integer, List<Point>> groupedXPoints) {
-        return pointGroup -> {
-            List<Square> squares = new ArrayList<>();
-            createSimpleCombinationGenerator(range(0, pointGroup.size() - 1), 2)
-                .forEach(indexPair -> {
-                    int firstIndex = indexPair.getValue(0);
-                    int secondIndex = indexPair.getValue(1);
-                    Square square = new Square(pointGroup.get(firstIndex), pointGroup.get(secondIndex));
-                    if (squareExists(groupedXPoints, square, pointGroup.get(firstIndex).getX()))
-                        squares.add(square);
-                });
-            return squares;
-        };
-    }
-
-    private boolean squareExists(Map<Integer, List<Point>> groupedXPoints, Square square, int x) {
-        return groupedXPoints
-            .getOrDefault(x + SquareFactory.getSideLength(square), new ArrayList<>())
-            .containsAll(
-                new HashSet<>(Set.of(
-                    SquareFactory.getPoint(UPPER_RIGHT, square), SquareFactory.getPoint(BOTTOM_RIGHT, square)
-                ))
+    private void recordDetection(PointIndex pointIndex, boolean anyOrientation, long startedAt, long squareCount) {
+        if (!metrics.isEnabled())
+            return;
+        metrics.recordTime(Stage.SQUARE_DETECTION, System.nanoTime() - startedAt);
+        metrics.increment(Counter.SQUARE_CANDIDATE_PAIR_BOUND, candidatePairBound(pointIndex, anyOrientation));
+        metrics.increment(Counter.SQUARES_FOUND, squareCount);
+    }
+
+    private static long candidatePairBound(PointIndex pointIndex, boolean anyOrientation) {
+        long columnPairs = 0;
+        for (int column = 0; column < pointIndex.columnCount(); column++) {
+            long columnSize = pointIndex.columnEnd(column) - pointIndex.columnStart(column);
+            columnPairs += columnSize * (columnSize - 1) / 2;
+        }
+        if (!anyOrientation)
+            return columnPairs;
+        long size = pointIndex.size();
+        return size * (size - 1) / 2 - columnPairs;
+    }
+
+    private final class LazySquares extends Spliterators.AbstractSpliterator<Square> {
+
+        private final String listId;
+        private final BottomSquareDetector detector;
+        private final Deque<Square> page = new ArrayDeque<>();
+        private PointIndex pointIndex;
+        private SquareCursor cursor;
+        private boolean finished;
+
+        LazySquares(String listId, BottomSquareDetector detector) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.listId = listId;
+            this.detector = detector;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Square> action) {
+            if (page.isEmpty() && !finished)
+                detectPage();
+            if (page.isEmpty())
+                return false;
+            action.accept(page.poll());
+            return true;
+        }
+
+        private void detectPage() {
+            if (pointIndex == null)
+                pointIndex = PointIndex.of(pointRepository.findByListIdOrderByXAscYAsc(listId));
+            cursor = SquarePager.detect(
+                pointIndex,
+                detector,
+                cursor,
+                STREAM_PAGE_SIZE,
+                (x, y, sideX, sideY) -> page.add(new Square(x, y, sideX, sideY, listId))
             );
+            finished = cursor == null;
+        }
+
     }
 
 }
@@ -0,0 +1,72 @@
+package com.andriusdgt.thedots.core.validation;
+
+import com.andriusdgt.thedots.core.annotation.Range;
+import com.andriusdgt.thedots.core.model.Point;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Field;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Checks the {@link Range} and {@link NotNull} constraints of {@link Point} with plain comparisons, calling the
+ * {@link Validator} only for a point failing them to get its message.
+ */
+public final class PointValidator {
+
+    private static final long X_MIN = rangeOf("x").min();
+    private static final long X_MAX = rangeOf("x").max();
+    private static final long Y_MIN = rangeOf("y").min();
+    private static final long Y_MAX = rangeOf("y").max();
+    private static final boolean LIST_ID_REQUIRED = field("listId").isAnnotationPresent(NotNull.class);
+
+    private final Validator validator;
+
+    public PointValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    public boolean isValid(int x, int y) {
+        return x >= X_MIN && x <= X_MAX && y >= Y_MIN && y <= Y_MAX;
+    }
+
+    public boolean isValid(Point point) {
+        return isValid(point.getX(), point.getY()) && (!LIST_ID_REQUIRED || point.getListId() != null);
+    }
+
+    /**
+     * Same as {@link #findViolation(Point)}, creating a point only when it is invalid.
+     */
+    public Optional<String> findViolation(int x, int y, String listId) {
+        if (isValid(x, y) && (!LIST_ID_REQUIRED || listId != null))
+            return Optional.empty();
+
+        return findViolation(new Point(x, y, listId));
+    }
+
+    /**
+     * Returns the message of the first constraint violated by the point, if any.
+     */
+    public Optional<String> findViolation(Point point) {
+        if (isValid(point))
+            return Optional.empty();
+
+        Set<ConstraintViolation<Point>> violations = validator.validate(point);
+        return violations.stream().findFirst().map(ConstraintViolation::getMessage);
+    }
+
+    private static Range rangeOf(String fieldName) {
+        return field(fieldName).getAnnotation(Range.class);
+    }
+
+    private static Field field(String fieldName) {
+        try {
+            return Point.class.getDeclaredField(fieldName);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Point has no field " + fieldName, e);
+        }
+    }
+
+}
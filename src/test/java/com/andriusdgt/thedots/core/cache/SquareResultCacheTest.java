@@ -0,0 +1,106 @@
+package com.andriusdgt.thedots.core.cache;
+
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.model.Square;
+import com.andriusdgt.thedots.core.repository.InMemoryPointRepository;
+import com.andriusdgt.thedots.core.repository.PointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SquareResultCacheTest {
+
+    private final List<String> detectedLists = new ArrayList<>();
+    private final Function<String, List<Square>> detection = listId -> {
+        detectedLists.add(listId);
+        return Collections.nCopies(2, new Square(new Point(0, 0, listId), new Point(0, 1, listId)));
+    };
+
+    private long now;
+    private SquareResultCache squareResultCache;
+
+    @BeforeEach
+    void setUp() {
+        squareResultCache = new SquareResultCache(4, Duration.ofMinutes(1), () -> now);
+    }
+
+    @Test
+    void detectsOnceForUnchangedList() {
+        List<Square> squares = squareResultCache.get("listId", detection);
+
+        assertEquals(squares, squareResultCache.get("listId", detection));
+        assertEquals(List.of("listId"), detectedLists);
+        assertEquals(1, squareResultCache.getHitCount());
+        assertEquals(1, squareResultCache.getMissCount());
+    }
+
+    @Test
+    void detectsAgainAfterWrite() {
+        squareResultCache.get("listId", detection);
+        squareResultCache.get("otherListId", detection);
+
+        squareResultCache.pointsAdded("listId", List.of(new Point(1, 1, "listId")));
+        squareResultCache.get("listId", detection);
+        squareResultCache.get("otherListId", detection);
+
+        assertEquals(List.of("listId", "otherListId", "listId"), detectedLists);
+    }
+
+    @Test
+    void doesNotStoreDetectionOutdatedByWrite() {
+        squareResultCache.get("listId", listId -> {
+            squareResultCache.pointRemoved(new Point(1, 1, listId));
+            return detection.apply(listId);
+        });
+
+        squareResultCache.get("listId", detection);
+
+        assertEquals(List.of("listId", "listId"), detectedLists);
+    }
+
+    @Test
+    void expiresSquares() {
+        squareResultCache.get("listId", detection);
+
+        now += Duration.ofMinutes(2).toNanos();
+        squareResultCache.get("listId", detection);
+
+        assertEquals(List.of("listId", "listId"), detectedLists);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedList() {
+        squareResultCache.get("listId", detection);
+        squareResultCache.get("otherListId", detection);
+        squareResultCache.get("listId", detection);
+
+        squareResultCache.get("thirdListId", detection);
+        squareResultCache.get("listId", detection);
+        squareResultCache.get("otherListId", detection);
+
+        assertEquals(4, squareResultCache.getCachedSquareCount());
+        assertEquals(List.of("listId", "otherListId", "thirdListId", "otherListId"), detectedLists);
+    }
+
+    @Test
+    void invalidatesOnWatchedRepositoryWrites() {
+        PointRepository pointRepository = squareResultCache.watch(new InMemoryPointRepository());
+        squareResultCache.get("listId", detection);
+
+        pointRepository.save(new Point(1, 1, "listId"));
+        squareResultCache.get("listId", detection);
+        pointRepository.deleteById("1:1:listId");
+        squareResultCache.get("listId", detection);
+
+        assertEquals(List.of("listId", "listId", "listId"), detectedLists);
+        assertEquals(0, pointRepository.countByListId("listId"));
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.andriusdgt.thedots.core.detection;
+
+import com.andriusdgt.thedots.core.index.PointIndex;
+import com.andriusdgt.thedots.core.model.Square;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SquareFinderTest {
+
+    private static final int[] XS = {0, 0, 1, 1, 2, 2, 0};
+    private static final int[] YS = {0, 1, 0, 1, 1, 0, 0};
+
+    @Test
+    void findsSquaresOfCoordinateArrays() {
+        List<Square> squares = SquareFinder.find(PointIndex.of(XS, YS), null);
+
+        assertEquals(Arrays.asList(new Square(0, 0, 1, 0, null), new Square(1, 0, 1, 0, null)), squares);
+        assertEquals(2, SquareFinder.count(PointIndex.of(XS, YS)));
+    }
+
+    @Test
+    void findsSquaresOfCoordinateBuffer() {
+        IntBuffer coordinates = IntBuffer.wrap(new int[]{7, 7, 0, 0, 0, 2, 1, 1, 2, 0, 2, 2});
+        coordinates.position(2);
+
+        List<Square> squares = SquareFinder.findInAnyOrientation(PointIndex.of(coordinates), "listId");
+
+        assertEquals(List.of(new Square(0, 0, 2, 0, "listId")), squares);
+        assertEquals(2, coordinates.position());
+        assertEquals(squares.size(), SquareFinder.countInAnyOrientation(PointIndex.of(coordinates)));
+    }
+
+    @Test
+    void findsSquaresOfDenseGridInAnyOrientation() {
+        PointIndex index = PointIndex.of(new int[]{0, 0, 0, 1, 1, 1, 2, 2, 2}, new int[]{0, 1, 2, 0, 1, 2, 0, 1, 2});
+
+        List<Square> squares = SquareFinder.findInAnyOrientation(index, null);
+
+        assertEquals(
+            Arrays.asList(
+                new Square(0, 0, 1, 0, null),
+                new Square(0, 0, 2, 0, null),
+                new Square(0, 1, 1, 0, null),
+                new Square(1, 0, 1, 0, null),
+                new Square(1, 0, 1, 1, null),
+                new Square(1, 1, 1, 0, null)
+            ),
+            squares
+        );
+    }
+
+    @Test
+    void findsSquaresCompletedByPoint() {
+        PointIndex index = PointIndex.of(new int[]{0, 0, 2, 1, 1}, new int[]{0, 2, 2, -1, 1});
+
+        assertEquals(List.of(new Square(0, 0, 2, 0, null)), SquareFinder.findCompletedBy(index, 2, 0, null));
+        assertEquals(
+            Arrays.asList(new Square(0, 0, 2, 0, null), new Square(1, -1, 1, 1, null)),
+            SquareFinder.findInAnyOrientationCompletedBy(index, 2, 0, null)
+        );
+        assertTrue(SquareFinder.findInAnyOrientationCompletedBy(index, 1, 1, null).isEmpty());
+    }
+
+    @Test
+    void rejectsUnpairedCoordinates() {
+        assertThrows(IllegalArgumentException.class, () -> PointIndex.of(new int[]{1, 2}, new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> PointIndex.of(IntBuffer.wrap(new int[]{1, 2, 3})));
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.andriusdgt.thedots.core.factory;
+
+import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.model.Square;
+import org.junit.jupiter.api.Test;
+
+import static com.andriusdgt.thedots.core.model.SquareVertex.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SquareFactoryTest {
+
+    @Test
+    void findsRightVerticesOfRotatedSquare() {
+        Square square = new Square(1, 0, 2, 1, "listId");
+
+        assertEquals(square.getVertices().get(BOTTOM_RIGHT), SquareFactory.newRightPoint(square, BOTTOM_LEFT));
+        assertEquals(square.getVertices().get(UPPER_RIGHT), SquareFactory.newRightPoint(square, UPPER_LEFT));
+    }
+
+    @Test
+    void findsSideLengthOfAxisAlignedSquareOnly() {
+        assertEquals(5, SquareFactory.getSideLength(new Square(new Point(0, 5, "listId"), new Point(0, 0, "listId"))));
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SquareFactory.getSideLength(new Square(1, 0, 2, 1, "listId"))
+        );
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.andriusdgt.thedots.core.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PointDumpParserTest {
+
+    private static final String DUMP = "@firstListId\n1 2\r\n-3 4\noops\n@secondListId\r\n5 6\n\n@firstListId\n7 -8\n";
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("points", ".txt");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.shutdownNow();
+        Files.delete(file);
+    }
+
+    @Test
+    void parsesPointsOfEveryList() throws IOException {
+        Files.write(file, DUMP.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, List<String>> lines = replay(PointDumpParser.parse(file, pool));
+
+        assertEquals(List.of("firstListId", "secondListId"), new ArrayList<>(lines.keySet()));
+        assertEquals(List.of("1 2", "-3 4", "7 -8", "malformed"), lines.get("firstListId"));
+        assertEquals(List.of("5 6", "malformed"), lines.get("secondListId"));
+    }
+
+    @Test
+    void parsesSameLinesWhateverTheRegionSize() throws IOException {
+        Files.write(file, (DUMP + "9 10").getBytes(StandardCharsets.UTF_8));
+        Map<String, List<String>> expectedLines = replay(PointDumpParser.parse(file, pool));
+
+        for (int regionSize = 1; regionSize <= DUMP.length() + 5; regionSize++)
+            assertEquals(expectedLines, replay(PointDumpParser.parse(file, pool, regionSize)));
+        assertEquals("9 10", expectedLines.get("firstListId").get(3));
+    }
+
+    @Test
+    void parsesEmptyDump() throws IOException {
+        assertTrue(PointDumpParser.parse(file, pool).isEmpty());
+    }
+
+    @Test
+    void rejectsLinesBeforeFirstList() throws IOException {
+        Files.write(file, "1 2\n@listId\n3 4".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> PointDumpParser.parse(file, pool));
+    }
+
+    private static Map<String, List<String>> replay(Map<String, ParsedPoints> pointsByList) {
+        Map<String, List<String>> linesByList = new LinkedHashMap<>();
+        pointsByList.forEach((listId, points) -> {
+            List<String> lines = new ArrayList<>();
+            points.replay(new PointTextHandler() {
+                @Override
+                public void onPoint(int x, int y) {
+                    lines.add(x + " " + y);
+                }
+
+                @Override
+                public void onMalformedLine() {
+                    lines.add("malformed");
+                }
+            });
+            linesByList.put(listId, lines);
+        });
+        return linesByList;
+    }
+
+}
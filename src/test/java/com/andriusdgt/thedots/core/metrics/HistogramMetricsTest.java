@@ -0,0 +1,50 @@
+package com.andriusdgt.thedots.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class HistogramMetricsTest {
+
+    private final HistogramMetrics metrics = new HistogramMetrics();
+
+    @Test
+    void reportsExactPercentilesOfShortDurations() {
+        for (long nanos = 1; nanos <= 100; nanos++)
+            metrics.recordTime(Stage.IMPORT, nanos % 64);
+
+        assertEquals(100, metrics.getCount(Stage.IMPORT));
+        assertEquals(0, metrics.getPercentileNanos(Stage.IMPORT, 0));
+        assertEquals(63, metrics.getPercentileNanos(Stage.IMPORT, 100));
+        assertEquals(63, metrics.getMaxNanos(Stage.IMPORT));
+    }
+
+    @Test
+    void reportsPercentilesWithinBucketPrecision() {
+        for (long millis = 1; millis <= 1000; millis++)
+            metrics.recordTime(Stage.SQUARE_DETECTION, millis * 1_000_000);
+
+        assertEquals(500_000_000, metrics.getPercentileNanos(Stage.SQUARE_DETECTION, 50), 500_000_000 * 0.04);
+        assertEquals(990_000_000, metrics.getPercentileNanos(Stage.SQUARE_DETECTION, 99), 990_000_000 * 0.04);
+        assertEquals(1_000_000_000, metrics.getPercentileNanos(Stage.SQUARE_DETECTION, 100));
+        assertEquals(500_500_000_000L, metrics.getTotalNanos(Stage.SQUARE_DETECTION));
+    }
+
+    @Test
+    void reportsNothingForUnrecordedStage() {
+        assertEquals(0, metrics.getPercentileNanos(Stage.IMPORT_SAVING, 99));
+        assertFalse(metrics.report().contains("IMPORT_SAVING"));
+    }
+
+    @Test
+    void sumsCountersAndImportThroughput() {
+        metrics.increment(Counter.IMPORTED_POINTS, 3000);
+        metrics.increment(Counter.IMPORTED_POINTS, 1000);
+        metrics.recordTime(Stage.IMPORT, 2_000_000_000);
+
+        assertEquals(4000, metrics.getCount(Counter.IMPORTED_POINTS));
+        assertEquals(2000, metrics.getImportedPointsPerSecond());
+        assertTrue(metrics.report().contains("IMPORTED_POINTS 4000\n"));
+    }
+
+}
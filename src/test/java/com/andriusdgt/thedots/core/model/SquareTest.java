@@ -0,0 +1,67 @@
+package com.andriusdgt.thedots.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.andriusdgt.thedots.core.model.SquareVertex.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SquareTest {
+
+    @Test
+    void derivesVertices() {
+        Square square = new Square(1, 0, 2, 1, "listId");
+
+        assertEquals(
+            Map.of(
+                BOTTOM_LEFT, new Point(1, 0, "listId"),
+                BOTTOM_RIGHT, new Point(3, 1, "listId"),
+                UPPER_RIGHT, new Point(2, 3, "listId"),
+                UPPER_LEFT, new Point(0, 2, "listId")
+            ),
+            square.getVertices()
+        );
+    }
+
+    @Test
+    void equalsSquareBuiltFromVertices() {
+        Square square = new Square(0, 0, 5, 0, "listId");
+
+        assertEquals(square, new Square(new Point(0, 0, "listId"), new Point(0, 5, "listId")));
+        assertEquals(
+            square,
+            new Square(
+                new Point(0, 0, "listId"),
+                new Point(5, 0, "listId"),
+                new Point(5, 5, "listId"),
+                new Point(0, 5, "listId")
+            )
+        );
+        assertEquals(square.hashCode(), new Square(new Point(0, 0, "listId"), new Point(0, 5, "listId")).hashCode());
+        assertNotEquals(square, new Square(0, 0, 5, 0, "otherListId"));
+    }
+
+    @Test
+    void buildsRightHandSquareFromLeftSideInEitherOrder() {
+        Square square = new Square(0, 0, 5, 0, "listId");
+
+        assertEquals(square, new Square(new Point(0, 5, "listId"), new Point(0, 0, "listId")));
+        assertEquals(new Point(5, 5, "listId"), square.getVertices().get(UPPER_RIGHT));
+        assertSame(square.getVertices(), square.getVertices());
+    }
+
+    @Test
+    void rejectsVerticesNotFormingSquare() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new Square(
+                new Point(0, 0, "listId"),
+                new Point(5, 0, "listId"),
+                new Point(5, 4, "listId"),
+                new Point(0, 5, "listId")
+            )
+        );
+    }
+
+}
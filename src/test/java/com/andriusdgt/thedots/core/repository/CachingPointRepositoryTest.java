@@ -0,0 +1,154 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+final class CachingPointRepositoryTest {
+
+    @Mock
+    private PointRepository pointRepository;
+
+    private CachingPointRepository cachingPointRepository;
+
+    @BeforeEach
+    void setUp() {
+        cachingPointRepository = new CachingPointRepository(pointRepository, 3);
+    }
+
+    @Test
+    void readsNothingForCachedList() {
+        stubList("listId", PointKeys.pack(5, 5));
+        cachingPointRepository.countByListId("listId");
+
+        cachingPointRepository.save(new Point(1, 1, "listId"));
+
+        assertTrue(cachingPointRepository.exists(new Point(1, 1, "listId")));
+        assertTrue(cachingPointRepository.exists(new Point(5, 5, "listId")));
+        assertFalse(cachingPointRepository.exists(new Point(2, 2, "listId")));
+        assertEquals(2, cachingPointRepository.countByListId("listId"));
+        verify(pointRepository).countByListId("listId");
+        verify(pointRepository).findKeysByListId("listId");
+        verify(pointRepository, never()).exists(any());
+        verify(pointRepository).save(new Point(1, 1, "listId"));
+    }
+
+    @Test
+    void cachesSavedBatches() {
+        stubList("listId");
+        cachingPointRepository.countByListId("listId");
+
+        cachingPointRepository.saveAll(Arrays.asList(new Point(1, 1, "listId"), new Point(2, 2, "otherListId")));
+
+        assertEquals(1, cachingPointRepository.countByListId("listId"));
+        assertArrayEquals(
+            new long[]{PointKeys.pack(1, 1)},
+            cachingPointRepository.findKeysByListId("listId").toArray()
+        );
+    }
+
+    @Test
+    void reloadsListAfterItsDeletion() {
+        stubList("listId", PointKeys.pack(5, 5));
+        cachingPointRepository.countByListId("listId");
+
+        cachingPointRepository.deleteByListId("listId");
+        stubList("listId");
+
+        assertEquals(0, cachingPointRepository.countByListId("listId"));
+        verify(pointRepository).deleteByListId("listId");
+    }
+
+    @Test
+    void reloadsListOfPointWithDelegateId() {
+        stubList("listId", PointKeys.pack(5, 5));
+        stubList("otherListId", PointKeys.pack(6, 6));
+        doReturn(Optional.of(new Point("pointId", 5, 5, "listId"))).when(pointRepository).findById("pointId");
+        cachingPointRepository.countByListId("listId");
+        cachingPointRepository.countByListId("otherListId");
+
+        cachingPointRepository.deleteById("pointId");
+        stubList("listId");
+
+        assertFalse(cachingPointRepository.exists(new Point(5, 5, "listId")));
+        assertTrue(cachingPointRepository.exists(new Point(6, 6, "otherListId")));
+        verify(pointRepository).deleteById("pointId");
+        verify(pointRepository).findKeysByListId("otherListId");
+    }
+
+    @Test
+    void keepsListsAfterDeletingUnknownPoint() {
+        stubList("listId", PointKeys.pack(5, 5));
+        cachingPointRepository.countByListId("listId");
+
+        cachingPointRepository.deleteById("pointId");
+
+        assertTrue(cachingPointRepository.exists(new Point(5, 5, "listId")));
+        verify(pointRepository).findKeysByListId("listId");
+    }
+
+    @Test
+    void reloadsOnlyListOfDeletedPoint() {
+        stubList("listId", PointKeys.pack(5, 5));
+        stubList("otherListId", PointKeys.pack(6, 6));
+        cachingPointRepository.countByListId("listId");
+        cachingPointRepository.countByListId("otherListId");
+
+        cachingPointRepository.deleteById(PointIds.of("listId", PointKeys.pack(5, 5)));
+        stubList("listId");
+
+        assertFalse(cachingPointRepository.exists(new Point(5, 5, "listId")));
+        assertTrue(cachingPointRepository.exists(new Point(6, 6, "otherListId")));
+        verify(pointRepository, times(2)).findKeysByListId("listId");
+        verify(pointRepository).findKeysByListId("otherListId");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedList() {
+        stubList("listId", PointKeys.pack(1, 1), PointKeys.pack(2, 2));
+        stubList("otherListId", PointKeys.pack(3, 3));
+        stubList("thirdListId", PointKeys.pack(4, 4));
+        cachingPointRepository.countByListId("listId");
+        cachingPointRepository.countByListId("otherListId");
+        cachingPointRepository.countByListId("listId");
+
+        cachingPointRepository.countByListId("thirdListId");
+
+        assertEquals(3, cachingPointRepository.getCachedPointCount());
+        cachingPointRepository.countByListId("listId");
+        cachingPointRepository.countByListId("otherListId");
+        verify(pointRepository).findKeysByListId("listId");
+        verify(pointRepository, times(2)).findKeysByListId("otherListId");
+    }
+
+    @Test
+    void doesNotCacheListOverLimit() {
+        doReturn(4L).when(pointRepository).countByListId("listId");
+        doReturn(true).when(pointRepository).exists(new Point(1, 1, "listId"));
+
+        assertTrue(cachingPointRepository.exists(new Point(1, 1, "listId")));
+        assertTrue(cachingPointRepository.exists(new Point(1, 1, "listId")));
+
+        assertEquals(0, cachingPointRepository.getCachedPointCount());
+        verify(pointRepository).countByListId("listId");
+        verify(pointRepository, never()).findKeysByListId("listId");
+    }
+
+    private void stubList(String listId, long... keys) {
+        lenient().doReturn((long) keys.length).when(pointRepository).countByListId(listId);
+        lenient().doAnswer(invocation -> LongStream.of(keys)).when(pointRepository).findKeysByListId(listId);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.model.PointList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InMemoryPointListRepositoryTest {
+
+    private InMemoryPointListRepository pointListRepository;
+
+    @BeforeEach
+    void setUp() {
+        pointListRepository = new InMemoryPointListRepository();
+    }
+
+    @Test
+    void findsSavedListByName() {
+        pointListRepository.save(new PointList("listId", "list name"));
+
+        assertEquals("listId", pointListRepository.findByName("list name").getId());
+    }
+
+    @Test
+    void findsSavedListById() {
+        pointListRepository.save(new PointList("listId", "list name"));
+
+        assertEquals("list name", pointListRepository.findById("listId").map(PointList::getName).orElse(null));
+        assertFalse(pointListRepository.findById("otherListId").isPresent());
+    }
+
+    @Test
+    void assignsIdToNewList() {
+        pointListRepository.save(new PointList(null, "list name"));
+
+        assertNotNull(pointListRepository.findByName("list name").getId());
+    }
+
+    @Test
+    void renamesList() {
+        pointListRepository.save(new PointList("listId", "list name"));
+        pointListRepository.save(new PointList("listId", "new list name"));
+
+        assertNull(pointListRepository.findByName("list name"));
+        assertEquals(1, pointListRepository.findAll().size());
+    }
+
+    @Test
+    void deletesList() {
+        PointList pointList = new PointList("listId", "list name");
+        pointListRepository.save(pointList);
+
+        pointListRepository.delete(pointList);
+
+        assertNull(pointListRepository.findByName("list name"));
+        assertTrue(pointListRepository.findAll().isEmpty());
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.model.Point;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InMemoryPointRepositoryTest {
+
+    private InMemoryPointRepository pointRepository;
+
+    @BeforeEach
+    void setUp() {
+        pointRepository = new InMemoryPointRepository();
+        pointRepository.saveAll(Arrays.asList(
+            new Point(5, 5, "listId"),
+            new Point(-5, 10, "listId"),
+            new Point(5, -5, "listId"),
+            new Point(0, 0, "otherListId")
+        ));
+    }
+
+    @Test
+    void findsPointsInInsertionOrder() {
+        assertEquals(
+            Arrays.asList(new Point(5, 5, "listId"), new Point(-5, 10, "listId"), new Point(5, -5, "listId")),
+            pointRepository.findByListId("listId")
+        );
+    }
+
+    @Test
+    void findsPointsOrderedByXAndY() {
+        assertEquals(
+            Arrays.asList(new Point(-5, 10, "listId"), new Point(5, -5, "listId"), new Point(5, 5, "listId")),
+            pointRepository.findByListIdOrderByXAscYAsc("listId")
+        );
+    }
+
+    @Test
+    void findsPageOfPoints() {
+        assertEquals(
+            Collections.singletonList(new Point(5, -5, "listId")),
+            pointRepository.findByListId("listId", 1, 2)
+        );
+    }
+
+    @Test
+    void findsSortedPagesOfPoints() {
+        assertEquals(
+            Arrays.asList(new Point(-5, 10, "listId"), new Point(5, -5, "listId")),
+            pointRepository.findByListIdOrderByXAndY("listId", 0, 2, "ASC")
+        );
+        assertEquals(
+            Collections.singletonList(new Point(-5, 10, "listId")),
+            pointRepository.findByListIdOrderByXAndY("listId", 1, 2, "desc")
+        );
+    }
+
+    @Test
+    void findsPointsWithinBox() {
+        assertEquals(
+            Arrays.asList(new Point(5, -5, "listId"), new Point(5, 5, "listId")),
+            pointRepository.findByListIdWithin("listId", 0, -5, 5, 5)
+        );
+        assertTrue(pointRepository.findByListIdWithin("listId", 6, -100, 100, 100).isEmpty());
+    }
+
+    @Test
+    void findsPointsWithinBoxAfterWrite() {
+        pointRepository.findByListIdWithin("listId", -5, -5, 5, 10);
+
+        pointRepository.save(new Point(1, 1, "listId"));
+        pointRepository.deleteById(PointIds.of("listId", PointKeys.pack(5, 5)));
+
+        assertEquals(
+            Arrays.asList(new Point(-5, 10, "listId"), new Point(1, 1, "listId"), new Point(5, -5, "listId")),
+            pointRepository.findByListIdWithin("listId", -5, -5, 5, 10)
+        );
+    }
+
+    @Test
+    void findsPointsWithinBoxAfterListGrows() {
+        pointRepository.findByListIdWithin("listId", 0, 0, 0, 0);
+
+        for (int i = 0; i < 100; i++)
+            pointRepository.save(new Point(i * 10, i, "listId"));
+
+        assertEquals(
+            Arrays.asList(new Point(5, 5, "listId"), new Point(10, 1, "listId"), new Point(20, 2, "listId")),
+            pointRepository.findByListIdWithin("listId", 1, 1, 20, 5)
+        );
+    }
+
+    @Test
+    void rejectsUnknownSortDirection() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> pointRepository.findByListIdOrderByXAndY("listId", 0, 2, "sideways")
+        );
+    }
+
+    @Test
+    void findsNoPointsOfUnknownList() {
+        assertTrue(pointRepository.findByListId("unknownListId").isEmpty());
+        assertEquals(0, pointRepository.countByListId("unknownListId"));
+    }
+
+    @Test
+    void findsPointKeys() {
+        long[] keys = pointRepository.findKeysByListId("otherListId").toArray();
+
+        assertArrayEquals(new long[]{PointKeys.pack(0, 0)}, keys);
+    }
+
+    @Test
+    void ignoresSavedDuplicate() {
+        pointRepository.save(new Point(5, 5, "listId"));
+
+        assertEquals(3, pointRepository.countByListId("listId"));
+    }
+
+    @Test
+    void checksPointExistence() {
+        assertTrue(pointRepository.exists(new Point(-5, 10, "listId")));
+        assertFalse(pointRepository.exists(new Point(-5, 10, "otherListId")));
+    }
+
+    @Test
+    void findsPointById() {
+        Point point = pointRepository.findByListIdOrderByXAscYAsc("listId").get(0);
+
+        assertEquals(Optional.of(point), pointRepository.findById(point.getId()));
+        assertEquals(point.getId(), pointRepository.findById(point.getId()).get().getId());
+        assertEquals(Optional.empty(), pointRepository.findById("6:6:listId"));
+        assertEquals(Optional.empty(), pointRepository.findById("pointId"));
+    }
+
+    @Test
+    void deletesPointById() {
+        List<Point> points = pointRepository.findByListIdOrderByXAscYAsc("listId");
+
+        pointRepository.deleteById(points.get(0).getId());
+
+        assertFalse(pointRepository.exists(new Point(-5, 10, "listId")));
+        assertEquals(
+            Arrays.asList(new Point(5, -5, "listId"), new Point(5, 5, "listId")),
+            pointRepository.findByListIdOrderByXAscYAsc("listId")
+        );
+    }
+
+    @Test
+    void deletesPointsOfList() {
+        pointRepository.deleteByListId("listId");
+
+        assertEquals(0, pointRepository.countByListId("listId"));
+        assertEquals(1, pointRepository.countByListId("otherListId"));
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.andriusdgt.thedots.core.repository;
+
+import com.andriusdgt.thedots.core.model.Point;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+final class MappedFilePointRepositoryTest {
+
+    private Path directory;
+    private MappedFilePointRepository pointRepository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("points");
+        pointRepository = new MappedFilePointRepository(directory);
+        pointRepository.saveAll(Arrays.asList(
+            new Point(5, 5, "listId"),
+            new Point(-5, 10, "listId"),
+            new Point(5, -5, "listId")
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pointRepository.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(file);
+        }
+    }
+
+    @Test
+    void findsSavedPoints() {
+        assertEquals(
+            Arrays.asList(new Point(5, 5, "listId"), new Point(-5, 10, "listId"), new Point(5, -5, "listId")),
+            pointRepository.findByListId("listId")
+        );
+        assertEquals(3, pointRepository.countByListId("listId"));
+    }
+
+    @Test
+    void readsNoFilesIntoExistenceForUnknownList() throws IOException {
+        List<Path> files = listFiles();
+
+        assertFalse(pointRepository.exists(new Point(5, 5, "otherListId")));
+        assertEquals(0, pointRepository.countByListId("otherListId"));
+        assertTrue(pointRepository.findByListIdOrderByXAndY("otherListId", 0, 10, "ASC").isEmpty());
+        assertEquals(0, pointRepository.findKeysByListId("otherListId").count());
+        pointRepository.deleteById("5:5:otherListId");
+        pointRepository.deleteByListId("otherListId");
+
+        assertEquals(files, listFiles());
+    }
+
+    @Test
+    void findsSortedPagesOfPoints() {
+        assertEquals(
+            Arrays.asList(new Point(-5, 10, "listId"), new Point(5, -5, "listId")),
+            pointRepository.findByListIdOrderByXAndY("listId", 0, 2, "asc")
+        );
+        assertEquals(
+            Collections.singletonList(new Point(-5, 10, "listId")),
+            pointRepository.findByListIdOrderByXAndY("listId", 1, 2, "DESC")
+        );
+    }
+
+    @Test
+    void ignoresSavedDuplicates() {
+        pointRepository.saveAll(Arrays.asList(new Point(5, 5, "listId"), new Point(1, 1, "listId")));
+        pointRepository.save(new Point(1, 1, "listId"));
+
+        assertEquals(4, pointRepository.countByListId("listId"));
+    }
+
+    @Test
+    void keepsPointsAfterReopening() throws IOException {
+        pointRepository.close();
+        pointRepository = new MappedFilePointRepository(directory);
+
+        assertTrue(pointRepository.exists(new Point(-5, 10, "listId")));
+        assertEquals(3, pointRepository.findByListIdOrderByXAscYAsc("listId").size());
+    }
+
+    @Test
+    void ignoresUncommittedPoints() throws IOException {
+        pointRepository.close();
+        Path segment = findFile(".points");
+        try (FileChannel channel = FileChannel.open(segment, APPEND)) {
+            channel.write(ByteBuffer.allocate(8).putInt(7).putInt(7).flip());
+        }
+        pointRepository = new MappedFilePointRepository(directory);
+
+        assertEquals(3, pointRepository.countByListId("listId"));
+        assertFalse(pointRepository.exists(new Point(7, 7, "listId")));
+        pointRepository.save(new Point(8, 8, "listId"));
+        assertEquals(new Point(8, 8, "listId"), pointRepository.findByListId("listId", 3, 1).get(0));
+    }
+
+    @Test
+    void rebuildsMissingIndex() throws IOException {
+        assertTrue(pointRepository.exists(new Point(5, 5, "listId")));
+        pointRepository.close();
+        Files.delete(findFile(".index"));
+        pointRepository = new MappedFilePointRepository(directory);
+
+        assertTrue(pointRepository.exists(new Point(5, 5, "listId")));
+        assertFalse(pointRepository.exists(new Point(6, 6, "listId")));
+    }
+
+    @Test
+    void growsIndex() {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            points.add(new Point(i, -i, "listId"));
+
+        pointRepository.saveAll(points);
+
+        assertEquals(1002, pointRepository.countByListId("listId"));
+        assertTrue(pointRepository.exists(new Point(999, -999, "listId")));
+        assertEquals(
+            Collections.singletonList(new Point(999, -999, "listId")),
+            pointRepository.findByListIdOrderByXAndY("listId", 0, 1, "desc")
+        );
+    }
+
+    @Test
+    void deletesPointById() {
+        Point point = pointRepository.findByListIdOrderByXAscYAsc("listId").get(0);
+
+        pointRepository.deleteById(point.getId());
+
+        assertFalse(pointRepository.exists(point));
+        assertEquals(
+            Arrays.asList(new Point(5, -5, "listId"), new Point(5, 5, "listId")),
+            pointRepository.findByListIdOrderByXAscYAsc("listId")
+        );
+    }
+
+    @Test
+    void movesLastPointIntoPlaceOfDeletedPoint() {
+        pointRepository.deleteById(pointRepository.findByListId("listId").get(0).getId());
+
+        assertEquals(
+            Arrays.asList(new Point(5, -5, "listId"), new Point(-5, 10, "listId")),
+            pointRepository.findByListId("listId")
+        );
+        assertTrue(pointRepository.exists(new Point(5, -5, "listId")));
+    }
+
+    @Test
+    void keepsSortedPointsUpToDateAcrossWrites() throws IOException {
+        assertTrue(Files.exists(findFile(".sorted")));
+
+        pointRepository.saveAll(Arrays.asList(new Point(0, 0, "listId"), new Point(9, 9, "listId")));
+        pointRepository.deleteById(pointRepository.findByListId("listId").get(2).getId());
+        pointRepository.save(new Point(-9, 0, "listId"));
+        pointRepository.close();
+        pointRepository = new MappedFilePointRepository(directory);
+
+        assertEquals(
+            Arrays.asList(
+                new Point(-9, 0, "listId"),
+                new Point(-5, 10, "listId"),
+                new Point(0, 0, "listId"),
+                new Point(5, 5, "listId"),
+                new Point(9, 9, "listId")
+            ),
+            pointRepository.findByListIdOrderByXAscYAsc("listId")
+        );
+    }
+
+    @Test
+    void finishesInterruptedDeletion() throws IOException {
+        pointRepository.close();
+        Path segment = findFile(".points");
+        try (FileChannel channel = FileChannel.open(segment, READ, WRITE)) {
+            long generation = channel.map(FileChannel.MapMode.READ_ONLY, 8, 8).getLong();
+            channel.write(ByteBuffer.allocate(16).putLong(generation + 1).putInt(3).putInt(1).flip(), 8);
+        }
+        pointRepository = new MappedFilePointRepository(directory);
+
+        assertEquals(
+            Arrays.asList(new Point(5, -5, "listId"), new Point(-5, 10, "listId")),
+            pointRepository.findByListId("listId")
+        );
+        assertFalse(pointRepository.exists(new Point(5, 5, "listId")));
+        assertEquals(
+            Arrays.asList(new Point(-5, 10, "listId"), new Point(5, -5, "listId")),
+            pointRepository.findByListIdOrderByXAscYAsc("listId")
+        );
+    }
+
+    @Test
+    void deletesPointsOfList() {
+        pointRepository.deleteByListId("listId");
+
+        assertEquals(0, pointRepository.countByListId("listId"));
+        assertTrue(pointRepository.findByListId("listId").isEmpty());
+        assertFalse(pointRepository.exists(new Point(5, 5, "listId")));
+    }
+
+    private Path findFile(String extension) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(extension)).findFirst().orElseThrow();
+        }
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(toList());
+        }
+    }
+
+}
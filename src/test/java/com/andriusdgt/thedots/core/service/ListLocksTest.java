@@ -0,0 +1,53 @@
+package com.andriusdgt.thedots.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ListLocksTest {
+
+    private final ListLocks listLocks = new ListLocks();
+
+    @Test
+    void locksListsIndependently() throws Exception {
+        listLocks.lock("listId");
+        try {
+            CompletableFuture.runAsync(() -> {
+                listLocks.lock("otherListId");
+                listLocks.unlock("otherListId");
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            listLocks.unlock("listId");
+        }
+    }
+
+    @Test
+    void releasesLocksNoLongerHeld() {
+        listLocks.lock("listId");
+        listLocks.lock("listId");
+        listLocks.unlock("listId");
+
+        assertEquals(1, listLocks.size());
+        listLocks.unlock("listId");
+        assertEquals(0, listLocks.size());
+    }
+
+    @Test
+    void keepsLocksOfInstancesApart() throws Exception {
+        listLocks.lock("listId");
+        try {
+            ListLocks otherListLocks = new ListLocks();
+            CompletableFuture.runAsync(() -> {
+                otherListLocks.lock("listId");
+                otherListLocks.unlock("listId");
+            }).get(10, TimeUnit.SECONDS);
+            assertEquals(0, otherListLocks.size());
+        } finally {
+            listLocks.unlock("listId");
+        }
+    }
+
+}
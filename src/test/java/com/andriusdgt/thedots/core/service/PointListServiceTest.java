@@ -1,8 +1,15 @@
 package com.andriusdgt.thedots.core.service;
 
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.listener.PointChangeListener;
+import com.andriusdgt.thedots.core.metrics.Counter;
+import com.andriusdgt.thedots.core.metrics.HistogramMetrics;
+import com.andriusdgt.thedots.core.metrics.Metrics;
+import com.andriusdgt.thedots.core.metrics.Stage;
 import com.andriusdgt.thedots.core.model.*;
 import com.andriusdgt.thedots.core.repository.PointListRepository;
 import com.andriusdgt.thedots.core.repository.PointRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,7 +20,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import javax.validation.ConstraintViolation;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,11 +52,18 @@ final class PointListServiceTest {
     @Mock
     private PointListRepository pointListRepository;
 
+    @Mock
+    private PointChangeListener pointChangeListener;
+
+    private final ListLocks listLocks = new ListLocks();
+
     private PointListService pointListService;
 
     @BeforeEach
     void setUp() {
-        pointListService = new PointListService(validator, pointRepository, pointListRepository);
+        pointListService = new PointListService(
+            validator, pointRepository, pointListRepository, pointChangeListener, Metrics.noOp(), listLocks
+        );
     }
 
     @Test
@@ -83,6 +111,17 @@ final class PointListServiceTest {
         verify(pointRepository).deleteByListId(savedPointList.getId());
     }
 
+    @Test
+    void notifiesAboutClearedListOfDuplicateName() {
+        PointList pointListToSave = new PointList(null, "list name");
+        PointList savedPointList = new PointList("listId", "list name");
+        doReturn(savedPointList).when(pointListRepository).findByName("list name");
+
+        pointListService.create(pointListToSave);
+
+        verify(pointChangeListener).listCleared(savedPointList.getId());
+    }
+
     @Nested
     class PointsImporting {
 
@@ -93,6 +132,14 @@ final class PointListServiceTest {
             verify(pointRepository).saveAll(Arrays.asList(new Point(10, 10, "listId"), new Point(-10, -20, "listId")));
         }
 
+        @Test
+        void notifiesAboutImportedPoints() {
+            pointListService.create(Stream.of("10 10", "-10 -20"), "listId", 100);
+
+            verify(pointChangeListener)
+                .pointsAdded("listId", Arrays.asList(new Point(10, 10, "listId"), new Point(-10, -20, "listId")));
+        }
+
         @Test
         void emptyStreamSavesNoPoints() {
             pointListService.create(Stream.empty(), "listId", 100);
@@ -126,6 +173,49 @@ final class PointListServiceTest {
             verify(pointRepository).saveAll(Collections.singletonList(new Point(10, 20, "listId")));
         }
 
+        @Test
+        void savesPointsImportedFromReader() throws IOException {
+            pointListService.create(new StringReader("10 10\r\n-10 -20\n"), "listId", 100);
+
+            verify(pointRepository).saveAll(Arrays.asList(new Point(10, 10, "listId"), new Point(-10, -20, "listId")));
+        }
+
+        @Test
+        void doesNotLockListWhileParsing() throws IOException {
+            Reader reader = new StringReader("10 10") {
+                @Override
+                public int read(char[] buffer, int offset, int length) throws IOException {
+                    assertEquals(0, listLocks.size());
+                    return super.read(buffer, offset, length);
+                }
+            };
+
+            pointListService.create(reader, "listId", 100);
+
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(10, 10, "listId")));
+            assertEquals(0, listLocks.size());
+        }
+
+        @Test
+        void savesPointsImportedFromChannel() throws IOException {
+            byte[] bytes = "10 10\n-10 -20".getBytes(StandardCharsets.US_ASCII);
+
+            pointListService.create(Channels.newChannel(new ByteArrayInputStream(bytes)), "listId", 100);
+
+            verify(pointRepository).saveAll(Arrays.asList(new Point(10, 10, "listId"), new Point(-10, -20, "listId")));
+        }
+
+        @Test
+        void ignoresIncorrectlyFormattedLinesOfBuffer() {
+            ByteBuffer buffer =
+                ByteBuffer.wrap("10 20\n\n10 30 10\n10  10\r10 10oops".getBytes(StandardCharsets.UTF_8));
+
+            Set<Warning> warnings = pointListService.create(buffer, "listId", 100);
+
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(10, 20, "listId")));
+            assertEquals(Set.of(new Warning("Found incorrectly formatted lines, ignoring")), warnings);
+        }
+
         @Test
         void producesIncorrectFormatWarning() {
             Set<Warning> warnings = pointListService.create(Stream.of("bananas"), "listId", 100);
@@ -136,11 +226,9 @@ final class PointListServiceTest {
 
         @Test
         void ignoresLinesWithValidationViolations() {
-            Point point = new Point(10, 20, "listId");
             Point invalidPoint = new Point(10, -999999, "listId");
             @SuppressWarnings("unchecked")
             ConstraintViolation<String> constraintViolationStub = mock(ConstraintViolation.class);
-            doReturn(new HashSet<>()).when(validator).validate(point);
             doReturn(Set.of(constraintViolationStub)).when(validator).validate(invalidPoint);
 
             pointListService.create(Stream.of("10 20", "10 -999999"), "listId", 100);
@@ -150,12 +238,10 @@ final class PointListServiceTest {
 
         @Test
         void producesValidationWarning() {
-            Point point = new Point(10, 20, "listId");
             Point invalidPoint = new Point(10, -999999, "listId");
             @SuppressWarnings("unchecked")
             ConstraintViolation<String> constraintViolationStub = mock(ConstraintViolation.class);
             doReturn("validation error").when(constraintViolationStub).getMessage();
-            doReturn(new HashSet<>()).when(validator).validate(point);
             doReturn(Set.of(constraintViolationStub)).when(validator).validate(invalidPoint);
 
             Set<Warning> warnings = pointListService.create(Stream.of("10 20", "10 -999999"), "listId", 100);
@@ -164,6 +250,19 @@ final class PointListServiceTest {
             assertTrue(warnings.iterator().next().getMessage().contains("validation error"));
         }
 
+        @Test
+        void validatesInvalidPointOnce() {
+            Point invalidPoint = new Point(10, -999999, "listId");
+            @SuppressWarnings("unchecked")
+            ConstraintViolation<String> constraintViolationStub = mock(ConstraintViolation.class);
+            doReturn(Set.of(constraintViolationStub)).when(validator).validate(invalidPoint);
+
+            pointListService.create(Stream.of("10 20", "10 -999999"), "listId", 100);
+
+            verify(validator, times(1)).validate(invalidPoint);
+            verify(validator, never()).validate(new Point(10, 20, "listId"));
+        }
+
         @Test
         void onlyOneWarningOfSameTypeIsProduced() {
             Point invalidPoint = new Point(10, -999999, "listId");
@@ -179,7 +278,7 @@ final class PointListServiceTest {
 
         @Test
         void doesNotSaveAlreadySavedPoints() {
-            doReturn(Collections.singletonList(new Point(5, 5, "listId"))).when(pointRepository).findByListId("listId");
+            doReturn(LongStream.of(PointKeys.pack(5, 5))).when(pointRepository).findKeysByListId("listId");
 
             pointListService.create(Stream.of("5 5"), "listId", 100);
 
@@ -188,7 +287,7 @@ final class PointListServiceTest {
 
         @Test
         void producesSavedDuplicatesFoundWarning() {
-            doReturn(Collections.singletonList(new Point(5, 5, "listId"))).when(pointRepository).findByListId("listId");
+            doReturn(LongStream.of(PointKeys.pack(5, 5))).when(pointRepository).findKeysByListId("listId");
 
             Set<Warning> warnings = pointListService.create(Stream.of("5 5"), "listId", 100);
 
@@ -220,13 +319,30 @@ final class PointListServiceTest {
 
         @Test
         void doesNotSaveTooManyPointsWhenListContainsSomePoints() {
-            doReturn(Collections.singletonList(new Point(5, 5, "listId"))).when(pointRepository).findByListId("listId");
+            doReturn(LongStream.of(PointKeys.pack(5, 5))).when(pointRepository).findKeysByListId("listId");
 
             pointListService.create(Stream.of("10 20", "-10 -20"), "listId", 2);
 
             verify(pointRepository).saveAll(Collections.singletonList(new Point(10, 20, "listId")));
         }
 
+        @Test
+        void doesNotLoadSavedPoints() {
+            pointListService.create(Stream.of("5 5"), "listId", 100);
+
+            verify(pointRepository, never()).findByListId("listId");
+        }
+
+        @Test
+        void savesNoPointsWhenListIsOverLimit() {
+            doReturn(LongStream.of(PointKeys.pack(5, 5), PointKeys.pack(6, 6)))
+                .when(pointRepository).findKeysByListId("listId");
+
+            pointListService.create(Stream.of("10 20"), "listId", 1);
+
+            verify(pointRepository).saveAll(new ArrayList<>());
+        }
+
         @Test
         void producesSizeLimitReachedWarning() {
             Set<Warning> warnings = pointListService.create(Stream.of("10 20", "-10 -20"), "listId", 1);
@@ -236,6 +352,138 @@ final class PointListServiceTest {
         }
     }
 
+    @Nested
+    class PipelinedPointsImporting {
+
+        private ExecutorService writer;
+
+        @BeforeEach
+        void setUp() {
+            writer = Executors.newSingleThreadExecutor();
+        }
+
+        @AfterEach
+        void tearDown() {
+            writer.shutdownNow();
+        }
+
+        @Test
+        void savesImportedPointsInChunks() {
+            pointListService.create(Stream.of("1 1", "2 2", "3 3", "4 4", "5 5"), "listId", 100, 2, writer);
+
+            verify(pointRepository).saveAll(Arrays.asList(new Point(1, 1, "listId"), new Point(2, 2, "listId")));
+            verify(pointRepository).saveAll(Arrays.asList(new Point(3, 3, "listId"), new Point(4, 4, "listId")));
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(5, 5, "listId")));
+        }
+
+        @Test
+        void notifiesAboutSavedChunks() {
+            pointListService.create(Stream.of("1 1", "2 2", "3 3"), "listId", 100, 2, writer);
+
+            verify(pointChangeListener)
+                .pointsAdded("listId", Arrays.asList(new Point(1, 1, "listId"), new Point(2, 2, "listId")));
+            verify(pointChangeListener).pointsAdded("listId", Collections.singletonList(new Point(3, 3, "listId")));
+        }
+
+        @Test
+        void doesNotSaveTooManyPoints() {
+            doReturn(LongStream.of(PointKeys.pack(5, 5))).when(pointRepository).findKeysByListId("listId");
+
+            Set<Warning> warnings = pointListService.create(Stream.of("1 1", "2 2", "3 3"), "listId", 3, 1, writer);
+
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(1, 1, "listId")));
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(2, 2, "listId")));
+            verify(pointRepository, times(2)).saveAll(anyIterable());
+            assertEquals(
+                Set.of(new Warning("New points exceeds list size limit of 3, not all points will be imported")),
+                warnings
+            );
+        }
+
+        @Test
+        void producesSameWarningsAsSingleWrite() {
+            List<String> lines = Arrays.asList("1 1", "1 1", "oops", "2 2", "3 3");
+
+            Set<Warning> warnings = pointListService.create(lines.stream(), "listId", 2, 1, writer);
+
+            assertEquals(pointListService.create(lines.stream(), "listId", 2), warnings);
+            assertEquals(3, warnings.size());
+        }
+
+        @Test
+        void rethrowsWriterFailure() {
+            doThrow(new IllegalStateException("write failed")).when(pointRepository).saveAll(anyIterable());
+
+            Exception ex = assertThrows(
+                IllegalStateException.class,
+                () -> pointListService.create(Stream.of("1 1", "2 2", "3 3", "4 4"), "listId", 100, 1, writer)
+            );
+
+            assertEquals("write failed", ex.getMessage());
+        }
+
+        @Test
+        void rejectsWriterRunningOnImportingThread() {
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> pointListService.create(Stream.of("1 1", "2 2", "3 3"), "listId", 100, 1, Runnable::run)
+            );
+
+            verify(pointRepository, never()).saveAll(anyIterable());
+        }
+
+    }
+
+    @Nested
+    class MeteredPointsImporting {
+
+        private final HistogramMetrics metrics = new HistogramMetrics();
+
+        @BeforeEach
+        void setUp() {
+            pointListService =
+                new PointListService(validator, pointRepository, pointListRepository, pointChangeListener, metrics);
+        }
+
+        @Test
+        void countsImportedAndIgnoredPoints() {
+            pointListService.create(Stream.of("1 1", "1 1", "oops", "2 2", "3 3"), "listId", 2);
+
+            assertEquals(2, metrics.getCount(Counter.IMPORTED_POINTS));
+            assertEquals(1, metrics.getCount(Counter.DUPLICATE_POINTS));
+            assertEquals(1, metrics.getCount(Counter.MALFORMED_LINES));
+            assertEquals(1, metrics.getCount(Counter.POINTS_OVER_LIMIT));
+            assertEquals(0, metrics.getCount(Counter.INVALID_POINTS));
+        }
+
+        @Test
+        void timesImportStages() throws IOException {
+            pointListService.create(Stream.of("1 1", "2 2"), "listId", 100);
+            pointListService.create(new StringReader("3 3\n4 4\n5 5"), "listId", 100);
+
+            for (Stage stage : List.of(Stage.IMPORT, Stage.IMPORT_PARSING, Stage.IMPORT_VALIDATION,
+                Stage.IMPORT_DEDUPLICATION))
+                assertEquals(2, metrics.getCount(stage), stage.name());
+            assertEquals(2, metrics.getCount(Stage.IMPORT_SAVING));
+            assertEquals(5, metrics.getCount(Counter.IMPORTED_POINTS));
+        }
+
+        @Test
+        void recordsFailedImport() {
+            byte[] truncatedPoints = {'D', 'O', 'T', 'S', 1, 0, 2, 0, 0, 2, 2, 0, 0};
+
+            assertThrows(
+                IOException.class,
+                () -> pointListService.createFromBinary(new ByteArrayInputStream(truncatedPoints), "listId", 100)
+            );
+
+            assertEquals(1, metrics.getCount(Stage.IMPORT));
+            assertEquals(1, metrics.getCount(Counter.FAILED_IMPORTS));
+            assertEquals(0, metrics.getCount(Counter.IMPORTED_POINTS));
+        }
+
+    }
+
     @Test
     void getsPointFromList() {
         List<Point> points = Collections.singletonList(new Point(10, -20, "listId"));
@@ -257,4 +505,135 @@ final class PointListServiceTest {
         assertEquals("", pointListService.getPoints("listId"));
     }
 
+    @Test
+    void writesPointsFromList() throws IOException {
+        List<Point> points = Arrays.asList(new Point(10, -20, "listId"), new Point(-10, 20, "listId"));
+        doReturn(points).when(pointRepository).findByListId("listId", 0, 1000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        pointListService.writePoints("listId", outputStream);
+
+        assertEquals("10 -20\n-10 20", outputStream.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void writesPointsPageByPage() throws IOException {
+        List<Point> fullPage = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            fullPage.add(new Point(i, -i, "listId"));
+        doReturn(fullPage).when(pointRepository).findByListId("listId", 0, 1000);
+        doReturn(Collections.singletonList(new Point(-2147483648, 2147483647, "listId")))
+            .when(pointRepository).findByListId("listId", 1, 1000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        pointListService.writePoints("listId", outputStream);
+
+        String text = outputStream.toString(StandardCharsets.US_ASCII);
+        assertTrue(text.startsWith("0 0\n1 -1\n"));
+        assertTrue(text.endsWith("\n999 -999\n-2147483648 2147483647"));
+    }
+
+    @Test
+    void writesNothingFromEmptyList() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        pointListService.writePoints("listId", outputStream);
+
+        assertEquals(0, outputStream.size());
+    }
+
+    @Nested
+    class BinaryPoints {
+
+        @Test
+        void importsExportedPoints() throws IOException {
+            doReturn(LongStream.of(PointKeys.pack(5, -7), PointKeys.pack(-3, 2), PointKeys.pack(5, 4)))
+                .when(pointRepository).findKeysByListId("listId");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            pointListService.writeBinaryPoints("listId", outputStream);
+
+            Set<Warning> warnings = pointListService.createFromBinary(
+                new ByteArrayInputStream(outputStream.toByteArray()), "otherListId", 100
+            );
+
+            assertTrue(warnings.isEmpty());
+            verify(pointRepository).saveAll(Arrays.asList(
+                new Point(-3, 2, "otherListId"), new Point(5, -7, "otherListId"), new Point(5, 4, "otherListId")
+            ));
+        }
+
+        @Test
+        void producesSameWarningsAsTextImport() throws IOException {
+            byte[] duplicatePoints = {'D', 'O', 'T', 'S', 1, 0, 3, 0, 0, 2, 2, 0, 0, 0, 0, 1, 1};
+
+            Set<Warning> warnings =
+                pointListService.createFromBinary(new ByteArrayInputStream(duplicatePoints), "listId", 1);
+
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(0, 0, "listId")));
+            assertEquals(pointListService.create(Stream.of("0 0", "0 0", "1 1"), "listId", 1), warnings);
+            assertEquals(2, warnings.size());
+        }
+
+        @Test
+        void importsNothingFromTruncatedInput() {
+            byte[] truncatedPoints = {'D', 'O', 'T', 'S', 1, 0, 2, 0, 0, 2, 2, 0, 0};
+
+            assertThrows(
+                IOException.class,
+                () -> pointListService.createFromBinary(new ByteArrayInputStream(truncatedPoints), "listId", 100)
+            );
+            verify(pointRepository, never()).saveAll(anyIterable());
+        }
+
+        @Test
+        void exportsListSmallerThanText() throws IOException {
+            List<Point> points = new ArrayList<>();
+            for (int x = -50; x < 50; x++)
+                for (int y = -50; y < 50; y += 7)
+                    points.add(new Point(x * 37, y * 41, "listId"));
+            doReturn(points.stream().mapToLong(PointKeys::pack)).when(pointRepository).findKeysByListId("listId");
+            doReturn(points).when(pointRepository).findByListId("listId");
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            pointListService.writeBinaryPoints("listId", outputStream);
+
+            assertTrue(outputStream.size() * 3 < pointListService.getPoints("listId").length());
+        }
+
+    }
+
+    @Nested
+    class DumpImporting {
+
+        private Path file;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            file = Files.createTempFile("points", ".txt");
+        }
+
+        @AfterEach
+        void tearDown() throws IOException {
+            Files.delete(file);
+        }
+
+        @Test
+        void importsPointsOfEveryList() throws IOException {
+            Files.write(file, "@listId\n1 1\n2 2\n@otherListId\n3 3\n@listId\n1 1".getBytes(StandardCharsets.UTF_8));
+
+            Map<String, Set<Warning>> warnings = pointListService.createFromDump(file, 100, ForkJoinPool.commonPool());
+
+            verify(pointRepository).saveAll(Arrays.asList(new Point(1, 1, "listId"), new Point(2, 2, "listId")));
+            verify(pointRepository).saveAll(Collections.singletonList(new Point(3, 3, "otherListId")));
+            assertEquals(
+                Map.of(
+                    "listId", Set.of(new Warning("Found duplicates, only distinct ones will be preserved")),
+                    "otherListId", Set.of()
+                ),
+                warnings
+            );
+        }
+
+    }
+
 }
@@ -2,9 +2,12 @@ package com.andriusdgt.thedots.core.service;
 
 import com.andriusdgt.thedots.core.exception.DuplicatePointException;
 import com.andriusdgt.thedots.core.exception.TooManyPointsException;
+import com.andriusdgt.thedots.core.listener.PointChangeListener;
 import com.andriusdgt.thedots.core.model.Point;
+import com.andriusdgt.thedots.core.repository.InMemoryPointRepository;
 import com.andriusdgt.thedots.core.repository.PointRepository;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -14,7 +17,13 @@ import javax.validation.ConstraintViolation;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
 
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,11 +37,14 @@ final class PointServiceTest {
     @Mock
     private PointRepository pointRepository;
 
+    @Mock
+    private PointChangeListener pointChangeListener;
+
     private PointService pointService;
 
     @BeforeEach
     void setUp() {
-        pointService = new PointService(validator, pointRepository);
+        pointService = new PointService(validator, pointRepository, pointChangeListener);
     }
 
     @Test
@@ -46,8 +58,17 @@ final class PointServiceTest {
     }
 
     @Test
-    void doesNotCreateOnValidationError() {
+    void notifiesAboutCreatedPoint() {
         Point point = new Point(1, 1, "listId");
+
+        pointService.create(point, 10000L);
+
+        verify(pointChangeListener).pointsAdded("listId", List.of(point));
+    }
+
+    @Test
+    void doesNotCreateOnValidationError() {
+        Point point = new Point(1, 99999, "listId");
         @SuppressWarnings("unchecked")
         ConstraintViolation<String> constraintViolationStub = mock(ConstraintViolation.class);
         doReturn("validation error").when(constraintViolationStub).getMessage();
@@ -59,6 +80,15 @@ final class PointServiceTest {
         verify(pointRepository, never()).save(point);
     }
 
+    @Test
+    void doesNotValidateWithValidatorWhenConstraintsAreMet() {
+        Point point = new Point(-5000, 5000, "listId");
+
+        pointService.create(point, 10000L);
+
+        verify(validator, never()).validate(point);
+    }
+
     @Test
     void doesNotCreateDuplicate() {
         Point point = new Point(1, 1, "listId");
@@ -79,4 +109,61 @@ final class PointServiceTest {
         verify(pointRepository, never()).save(point);
     }
 
+    @Test
+    void deletesPoint() {
+        Point point = new Point(1, 1, "listId");
+
+        pointService.delete(point);
+
+        verify(pointRepository).deleteById(point.getId());
+        verify(pointChangeListener).pointRemoved(point);
+    }
+
+    @Nested
+    final class ConcurrentCreation {
+
+        private static final int THREAD_COUNT = 8;
+        private static final long LIST_SIZE_LIMIT = 150;
+
+        private final InMemoryPointRepository inMemoryPointRepository = new InMemoryPointRepository();
+
+        @Test
+        void keepsPointsDistinctAndWithinLimit() throws InterruptedException {
+            PointService concurrentPointService = new PointService(validator, inMemoryPointRepository);
+            AtomicInteger createdCount = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+            CountDownLatch start = new CountDownLatch(1);
+
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                String listId = thread % 2 == 0 ? "listId" : "otherListId";
+                executor.execute(() -> {
+                    awaitQuietly(start);
+                    for (int i = 0; i < 400; i++) {
+                        try {
+                            concurrentPointService.create(new Point(i % 200, 0, listId), LIST_SIZE_LIMIT);
+                            createdCount.incrementAndGet();
+                        } catch (DuplicatePointException | TooManyPointsException ignored) {
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+            assertEquals(LIST_SIZE_LIMIT, inMemoryPointRepository.countByListId("listId"));
+            assertEquals(LIST_SIZE_LIMIT, inMemoryPointRepository.countByListId("otherListId"));
+            assertEquals(2 * LIST_SIZE_LIMIT, createdCount.get());
+        }
+
+        private void awaitQuietly(CountDownLatch latch) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
 }
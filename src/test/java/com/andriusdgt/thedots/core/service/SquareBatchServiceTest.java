@@ -0,0 +1,226 @@
+package com.andriusdgt.thedots.core.service;
+
+import com.andriusdgt.thedots.core.factory.PointFactory;
+import com.andriusdgt.thedots.core.metrics.HistogramMetrics;
+import com.andriusdgt.thedots.core.metrics.Metrics;
+import com.andriusdgt.thedots.core.metrics.MeteredPointRepository;
+import com.andriusdgt.thedots.core.metrics.Stage;
+import com.andriusdgt.thedots.core.model.ListSquares;
+import com.andriusdgt.thedots.core.repository.InMemoryPointRepository;
+import com.andriusdgt.thedots.core.repository.PointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+final class SquareBatchServiceTest {
+
+    private final HistogramMetrics repositoryMetrics = new HistogramMetrics();
+    private final PointRepository pointRepository =
+        new MeteredPointRepository(new InMemoryPointRepository(), repositoryMetrics);
+    private final SquareService squareService = new SquareService(pointRepository);
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        savePoints("firstListId", "0 0;0 1;1 0;1 1");
+        savePoints("secondListId", "0 0;0 2;2 0;2 2;1 1");
+        savePoints("thirdListId", "0 0;0 5;5 0");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void findsSquaresOfEveryList() {
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, squareService, executor, 2, Duration.ofMinutes(1));
+        List<String> listIds = Arrays.asList("firstListId", "secondListId", "thirdListId", "emptyListId");
+
+        Map<String, ListSquares> results;
+        try (Stream<ListSquares> stream = squareBatchService.find(listIds)) {
+            results = stream.collect(toMap(ListSquares::getListId, listSquares -> listSquares));
+        }
+
+        assertEquals(listIds.size(), results.size());
+        for (String listId : listIds) {
+            assertFalse(results.get(listId).isTimedOut());
+            assertEquals(squareService.find(listId), results.get(listId).getSquares());
+        }
+    }
+
+    @Test
+    void readsPointsOfSeveralListsAtOnce() {
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, squareService, executor, 1, Duration.ofMinutes(1), 2);
+
+        long resultCount = squareBatchService.find(Arrays.asList("firstListId", "secondListId", "thirdListId")).count();
+
+        assertEquals(3, resultCount);
+        assertEquals(2, repositoryMetrics.getCount(Stage.REPOSITORY_FIND));
+    }
+
+    @Test
+    void reportsSlowListAsTimedOut() {
+        CountDownLatch detectionReleased = new CountDownLatch(1);
+        SquareService slowSquareService = new SquareService(pointRepository, new Metrics() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void recordTime(Stage stage, long nanos) {
+                try {
+                    detectionReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, slowSquareService, executor, 2, Duration.ofMillis(50));
+
+        List<ListSquares> results;
+        try {
+            results = squareBatchService.find(Arrays.asList("firstListId", "firstListId")).collect(toList());
+        } finally {
+            detectionReleased.countDown();
+        }
+
+        assertEquals(List.of(ListSquares.timedOut("firstListId")), results);
+    }
+
+    @Test
+    void startsTimeoutWhenDetectionStarts() {
+        ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+        SquareService slowSquareService = new SquareService(pointRepository, new Metrics() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void recordTime(Stage stage, long nanos) {
+                sleepUninterruptibly(Duration.ofMillis(100));
+            }
+        });
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, slowSquareService, singleThreadExecutor, 4, Duration.ofMillis(300));
+        List<String> listIds = Arrays.asList("firstListId", "secondListId", "thirdListId", "emptyListId");
+
+        List<ListSquares> results;
+        try {
+            results = squareBatchService.find(listIds).collect(toList());
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+
+        assertEquals(listIds, results.stream().map(ListSquares::getListId).collect(toList()));
+        assertTrue(results.stream().noneMatch(ListSquares::isTimedOut));
+    }
+
+    @Test
+    void keepsSlotOfTimedOutListUntilItsDetectionEnds() {
+        AtomicBoolean firstDetection = new AtomicBoolean(true);
+        AtomicInteger runningDetections = new AtomicInteger();
+        AtomicInteger maxRunningDetections = new AtomicInteger();
+        SquareService slowSquareService = new SquareService(pointRepository, new Metrics() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void recordTime(Stage stage, long nanos) {
+                maxRunningDetections.accumulateAndGet(runningDetections.incrementAndGet(), Math::max);
+                if (firstDetection.getAndSet(false))
+                    sleepUninterruptibly(Duration.ofMillis(200));
+                runningDetections.decrementAndGet();
+            }
+        });
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, slowSquareService, executor, 1, Duration.ofMillis(50));
+
+        List<ListSquares> results = squareBatchService.find(Arrays.asList("firstListId", "secondListId"))
+            .collect(toList());
+
+        assertEquals(ListSquares.timedOut("firstListId"), results.get(0));
+        assertFalse(results.get(1).isTimedOut());
+        assertEquals(1, maxRunningDetections.get());
+    }
+
+    @Test
+    void retriesListRejectedWhileDetectionsRun() {
+        AtomicInteger submissions = new AtomicInteger();
+        Executor rejectingExecutor = command -> {
+            if (submissions.incrementAndGet() == 2)
+                throw new RejectedExecutionException("Executor is busy");
+            executor.execute(command);
+        };
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, squareService, rejectingExecutor, 2, Duration.ofMinutes(1));
+
+        List<String> listIds = squareBatchService.find(Arrays.asList("firstListId", "secondListId", "thirdListId"))
+            .map(ListSquares::getListId)
+            .sorted()
+            .collect(toList());
+
+        assertEquals(Arrays.asList("firstListId", "secondListId", "thirdListId"), listIds);
+        assertEquals(4, submissions.get());
+    }
+
+    @Test
+    void throwsRejectionWhenNoDetectionRuns() {
+        Executor rejectingExecutor = command -> {
+            throw new RejectedExecutionException("Executor is shut down");
+        };
+        SquareBatchService squareBatchService =
+            new SquareBatchService(pointRepository, squareService, rejectingExecutor, 1, Duration.ofMinutes(1));
+
+        try (Stream<ListSquares> stream = squareBatchService.find(Arrays.asList("firstListId", "secondListId"))) {
+            assertThrows(RejectedExecutionException.class, stream::count);
+        }
+    }
+
+    private static void sleepUninterruptibly(Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        boolean interrupted = false;
+        for (long remaining; (remaining = end - System.nanoTime()) > 0; ) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void savePoints(String listId, String pointPairs) {
+        for (String pointPair : pointPairs.split(";"))
+            pointRepository.save(PointFactory.from(pointPair, listId));
+    }
+
+}
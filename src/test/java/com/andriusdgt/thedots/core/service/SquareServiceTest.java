@@ -1,22 +1,36 @@
 package com.andriusdgt.thedots.core.service;
 
+import com.andriusdgt.thedots.core.cache.SquareResultCache;
 import com.andriusdgt.thedots.core.factory.PointFactory;
+import com.andriusdgt.thedots.core.index.PointKeys;
+import com.andriusdgt.thedots.core.index.SquareIndexRegistry;
+import com.andriusdgt.thedots.core.metrics.Counter;
+import com.andriusdgt.thedots.core.metrics.HistogramMetrics;
+import com.andriusdgt.thedots.core.metrics.Stage;
 import com.andriusdgt.thedots.core.model.Point;
 import com.andriusdgt.thedots.core.model.Square;
+import com.andriusdgt.thedots.core.model.SquarePage;
 import com.andriusdgt.thedots.core.repository.PointRepository;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 final class SquareServiceTest {
@@ -99,6 +113,150 @@ final class SquareServiceTest {
         );
     }
 
+    @Test
+    void findsSquaresInGrid() {
+        doReturn(createPoints("0 0;0 1;0 2;0 3;1 0;1 1;1 2;1 3;2 0;2 1;2 2;2 3;3 0;3 1;3 2;3 3"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        List<Square> squares = squareService.find("listId");
+
+        assertEquals(14, squares.size());
+    }
+
+    @Test
+    void findsSquaresOrderedByBottomLeftVertex() {
+        doReturn(createPoints("-20 -20;-20 0;-20 20;0 -20;0 0;0 20;20 0;20 20"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        List<Square> squares = squareService.find("listId");
+
+        assertEquals(
+            Arrays.asList(
+                new Square(new Point(-20, -20, "listId"), new Point(-20, 0, "listId")),
+                new Square(new Point(-20, 0, "listId"), new Point(-20, 20, "listId")),
+                new Square(new Point(0, 0, "listId"), new Point(0, 20, "listId"))
+            ),
+            squares
+        );
+    }
+
+    @Test
+    void findsSquaresInDenseGrid() {
+        List<Point> points = new ArrayList<>();
+        for (int x = -15; x < 15; x++)
+            for (int y = -15; y < 15; y++)
+                points.add(new Point(x, y, "listId"));
+        doReturn(points).when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        List<Square> squares = squareService.find("listId");
+
+        assertEquals(8555, squares.size());
+        assertEquals(squareService.stream("listId").collect(toList()), squares);
+    }
+
+    @Test
+    void findsSameSquaresInParallel() {
+        List<Point> points = new ArrayList<>();
+        for (int x = 0; x <= 2; x++)
+            for (int y = 0; y < 2000; y += x == 2 ? 2 : 1)
+                points.add(new Point(x, y, "listId"));
+        doReturn(points).when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        List<Square> squares = squareService.find("listId", pool);
+
+        assertEquals(squareService.find("listId"), squares);
+        assertEquals(1999 + 999, squares.size());
+        pool.shutdown();
+    }
+
+    @Test
+    void findsSquaresInPages() {
+        doReturn(createPoints("-20 -20;-20 0;-20 20;0 -20;0 0;0 20;20 0;20 20"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        SquarePage firstPage = squareService.find("listId", null, 2);
+        SquarePage secondPage = squareService.find("listId", firstPage.getNextCursor(), 2);
+
+        assertEquals(
+            new SquarePage(
+                Arrays.asList(
+                    new Square(new Point(-20, -20, "listId"), new Point(-20, 0, "listId")),
+                    new Square(new Point(-20, 0, "listId"), new Point(-20, 20, "listId"))
+                ),
+                "-20,0,20,0"
+            ),
+            firstPage
+        );
+        assertEquals(
+            new SquarePage(
+                Collections.singletonList(new Square(new Point(0, 0, "listId"), new Point(0, 20, "listId"))),
+                null
+            ),
+            secondPage
+        );
+    }
+
+    @Test
+    void streamsSquaresInFindOrder() {
+        doReturn(createPoints("0 0;0 1;0 2;0 3;1 0;1 1;1 2;1 3;2 0;2 1;2 2;2 3;3 0;3 1;3 2;3 3"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        assertEquals(squareService.find("listId"), squareService.stream("listId").collect(toList()));
+        assertEquals(
+            squareService.findInAnyOrientation("listId"),
+            squareService.streamInAnyOrientation("listId").collect(toList())
+        );
+    }
+
+    @Test
+    void countsSquares() {
+        doReturn(createPoints("0 0;0 1;0 2;1 0;1 1;1 2;2 0;2 1;2 2"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        assertEquals(5, squareService.count("listId"));
+        assertEquals(6, squareService.countInAnyOrientation("listId"));
+    }
+
+    @Test
+    void findsSquaresWithinBox() {
+        doReturn(createPoints("0 0;0 2;2 0;2 2;1 1"))
+            .when(pointRepository).findByListIdWithin("listId", 0, 0, 3, 2);
+
+        List<Square> squares = squareService.findWithin("listId", 0, 0, 3, 2);
+
+        assertEquals(Collections.singletonList(new Square(0, 0, 2, 0, "listId")), squares);
+    }
+
+    @Test
+    void findsSquaresCompletedByPoint() {
+        doReturn(createKeys("0 0;0 2;2 0;4 0;4 2;5 5")).when(pointRepository).findKeysByListId("listId");
+
+        List<Square> squares = squareService.findCompletedBy(new Point(2, 2, "listId"));
+
+        assertEquals(Arrays.asList(new Square(0, 0, 2, 0, "listId"), new Square(2, 0, 2, 0, "listId")), squares);
+        verify(pointRepository, never()).exists(any());
+    }
+
+    @Test
+    void findsRotatedSquareCompletedByPoint() {
+        doReturn(createKeys("-1 0;0 -1;1 0;3 3")).when(pointRepository).findKeysByListId("listId");
+
+        List<Square> squares = squareService.findInAnyOrientationCompletedBy(new Point(0, 1, "listId"));
+
+        assertEquals(Collections.singletonList(new Square(0, -1, 1, 1, "listId")), squares);
+    }
+
+    @Test
+    void returnsUnmodifiableSquares() {
+        doReturn(createPoints("0 0;0 5;5 0;5 5"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        List<Square> squares = squareService.find("listId");
+
+        assertThrows(UnsupportedOperationException.class, () -> squares.add(new Square(0, 0, 1, 0, "listId")));
+    }
+
     @Test
     void ignoresRectangles() {
         doReturn(createPoints("0 0;0 3;6 0;6 3"))
@@ -123,6 +281,197 @@ final class SquareServiceTest {
         assertEquals(0, squareService.find("listId").size());
     }
 
+    @Test
+    void findsRotatedSquare() {
+        doReturn(createPoints("-1 0;0 -1;0 1;1 0;3 3"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        List<Square> squares = squareService.findInAnyOrientation("listId");
+
+        assertEquals(
+            Collections.singletonList(
+                new Square(
+                    new Point(0, -1, "listId"),
+                    new Point(1, 0, "listId"),
+                    new Point(0, 1, "listId"),
+                    new Point(-1, 0, "listId")
+                )
+            ),
+            squares
+        );
+    }
+
+    @Test
+    void findsSquaresOfEveryOrientationInGrid() {
+        doReturn(createPoints("0 0;0 1;0 2;1 0;1 1;1 2;2 0;2 1;2 2"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        List<Square> squares = squareService.findInAnyOrientation("listId");
+
+        assertEquals(6, squares.size());
+        assertTrue(squares.contains(new Square(new Point(0, 0, "listId"), new Point(0, 2, "listId"))));
+        assertTrue(
+            squares.contains(
+                new Square(
+                    new Point(1, 0, "listId"),
+                    new Point(2, 1, "listId"),
+                    new Point(1, 2, "listId"),
+                    new Point(0, 1, "listId")
+                )
+            )
+        );
+    }
+
+    @Test
+    void ignoresRhombuses() {
+        doReturn(createPoints("0 0;2 1;3 3;1 2"))
+            .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+        assertEquals(0, squareService.findInAnyOrientation("listId").size());
+    }
+
+    @Nested
+    class IndexedSquares {
+
+        private SquareIndexRegistry squareIndexRegistry;
+
+        @BeforeEach
+        void setUp() {
+            squareIndexRegistry = new SquareIndexRegistry(pointRepository);
+            squareService = new SquareService(pointRepository, squareIndexRegistry);
+        }
+
+        @Test
+        void findsSquare() {
+            doReturn(createPoints("0 0;0 5;2 2;5 0;5 5"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+            List<Square> squares = squareService.find("listId");
+
+            assertEquals(
+                Collections.singletonList(new Square(new Point(0, 0, "listId"), new Point(0, 5, "listId"))),
+                squares
+            );
+        }
+
+        @Test
+        void findsSquareCompletedByAddedPoint() {
+            doReturn(createPoints("0 0;0 5;5 0"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+            squareService.find("listId");
+
+            squareIndexRegistry.pointsAdded("listId", createPoints("5 5"));
+
+            assertEquals(
+                Collections.singletonList(new Square(new Point(0, 0, "listId"), new Point(0, 5, "listId"))),
+                squareService.find("listId")
+            );
+            verify(pointRepository, times(1)).findByListIdOrderByXAscYAsc("listId");
+        }
+
+        @Test
+        void findsSquareCompletedByPointWithoutAddingIt() {
+            doReturn(createPoints("0 0;0 5;5 0"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+            assertEquals(
+                Collections.singletonList(new Square(0, 0, 5, 0, "listId")),
+                squareService.findCompletedBy(new Point(5, 5, "listId"))
+            );
+            assertEquals(0, squareService.find("listId").size());
+            assertEquals(0, squareService.findCompletedBy(new Point(0, 5, "listId")).size());
+        }
+
+        @Test
+        void doesNotFindSquareOfRemovedPoint() {
+            doReturn(createPoints("-20 -20;-20 0;-20 20;0 -20;0 0;0 20"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+            squareService.find("listId");
+
+            squareIndexRegistry.pointRemoved(new Point(-20, -20, "listId"));
+
+            assertEquals(
+                Collections.singletonList(new Square(new Point(-20, 0, "listId"), new Point(-20, 20, "listId"))),
+                squareService.find("listId")
+            );
+        }
+
+        @Test
+        void reloadsClearedList() {
+            doReturn(createPoints("0 0;0 5;5 0;5 5"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+            squareService.find("listId");
+
+            squareIndexRegistry.listCleared("listId");
+            squareService.find("listId");
+
+            verify(pointRepository, times(2)).findByListIdOrderByXAscYAsc("listId");
+        }
+
+    }
+
+    @Nested
+    class CachedSquares {
+
+        private SquareResultCache squareResultCache;
+
+        @BeforeEach
+        void setUp() {
+            squareResultCache = new SquareResultCache(100, Duration.ofMinutes(1));
+            squareService = new SquareService(pointRepository, squareResultCache);
+        }
+
+        @Test
+        void detectsUnchangedListOnce() {
+            doReturn(createPoints("0 0;0 5;5 0;5 5"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+            List<Square> squares = squareService.find("listId");
+
+            assertEquals(squares, squareService.find("listId"));
+            assertEquals(squares, squareService.find("listId", ForkJoinPool.commonPool()));
+            verify(pointRepository, times(1)).findByListIdOrderByXAscYAsc("listId");
+        }
+
+        @Test
+        void detectsChangedListAgain() {
+            doReturn(createPoints("0 0;0 5;5 0"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+            squareService.find("listId");
+
+            squareResultCache.pointsAdded("listId", createPoints("5 5"));
+            squareService.find("listId");
+
+            verify(pointRepository, times(2)).findByListIdOrderByXAscYAsc("listId");
+        }
+
+    }
+
+    @Nested
+    class MeteredSquares {
+
+        private final HistogramMetrics metrics = new HistogramMetrics();
+
+        @BeforeEach
+        void setUp() {
+            squareService = new SquareService(pointRepository, metrics);
+        }
+
+        @Test
+        void recordsDetections() {
+            doReturn(createPoints("0 0;0 1;0 2;1 0;1 1;2 5"))
+                .when(pointRepository).findByListIdOrderByXAscYAsc("listId");
+
+            squareService.find("listId");
+            squareService.countInAnyOrientation("listId");
+
+            assertEquals(2, metrics.getCount(Stage.SQUARE_DETECTION));
+            assertEquals(2, metrics.getCount(Counter.SQUARES_FOUND));
+            assertEquals(4 + 11, metrics.getCount(Counter.SQUARE_CANDIDATE_PAIR_BOUND));
+        }
+
+    }
+
     private List<Point> createPoints(String pointPairs) {
         List<Point> points = new ArrayList<>();
         for (String pointPair : pointPairs.split(";"))
@@ -130,4 +479,8 @@ final class SquareServiceTest {
         return points;
     }
 
+    private LongStream createKeys(String pointPairs) {
+        return createPoints(pointPairs).stream().mapToLong(PointKeys::pack);
+    }
+
 }